@@ -0,0 +1,78 @@
+package com.songoda.ultimatetimber.misc;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of primitive longs
+ */
+public class LongArrayList {
+
+    private long[] elements;
+    private int size;
+
+    public LongArrayList() {
+        this(16);
+    }
+
+    public LongArrayList(int initialCapacity) {
+        this.elements = new long[Math.max(1, initialCapacity)];
+    }
+
+    /**
+     * Adds a value to the end of this list
+     *
+     * @param value The value to add
+     */
+    public void add(long value) {
+        if (this.size == this.elements.length)
+            this.elements = Arrays.copyOf(this.elements, this.elements.length << 1);
+        this.elements[this.size++] = value;
+    }
+
+    /**
+     * Gets the value at the given index
+     *
+     * @param index The index of the value
+     * @return The value at the given index
+     */
+    public long get(int index) {
+        if (index >= this.size)
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + this.size);
+        return this.elements[index];
+    }
+
+    /**
+     * Gets the number of values in this list
+     *
+     * @return The number of values in this list
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Checks if this list is empty
+     *
+     * @return True if this list has no values, otherwise false
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Removes all values from this list
+     */
+    public void clear() {
+        this.size = 0;
+    }
+
+    /**
+     * Copies the values of this list into a new array
+     *
+     * @return An array of the values in this list
+     */
+    public long[] toArray() {
+        return Arrays.copyOf(this.elements, this.size);
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.songoda.ultimatetimber.misc;
+
+/**
+ * A first-in first-out queue of primitive longs backed by a growable ring buffer
+ */
+public class LongArrayQueue {
+
+    private long[] elements;
+    private int head;
+    private int size;
+
+    public LongArrayQueue() {
+        this(64);
+    }
+
+    public LongArrayQueue(int initialCapacity) {
+        this.elements = new long[Integer.highestOneBit(Math.max(2, initialCapacity) - 1) << 1];
+    }
+
+    /**
+     * Adds a value to the end of this queue
+     *
+     * @param value The value to add
+     */
+    public void add(long value) {
+        if (this.size == this.elements.length)
+            this.grow();
+        this.elements[(this.head + this.size) & (this.elements.length - 1)] = value;
+        this.size++;
+    }
+
+    /**
+     * Removes the value at the front of this queue
+     *
+     * @return The value at the front of this queue
+     * @throws IllegalStateException If this queue is empty
+     */
+    public long poll() {
+        if (this.size == 0)
+            throw new IllegalStateException("Queue is empty");
+        long value = this.elements[this.head];
+        this.head = (this.head + 1) & (this.elements.length - 1);
+        this.size--;
+        return value;
+    }
+
+    /**
+     * Gets the number of values in this queue
+     *
+     * @return The number of values in this queue
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Checks if this queue is empty
+     *
+     * @return True if this queue has no values, otherwise false
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Removes all values from this queue
+     */
+    public void clear() {
+        this.head = 0;
+        this.size = 0;
+    }
+
+    private void grow() {
+        long[] newElements = new long[this.elements.length << 1];
+        int firstPart = Math.min(this.size, this.elements.length - this.head);
+        System.arraycopy(this.elements, this.head, newElements, 0, firstPart);
+        System.arraycopy(this.elements, 0, newElements, firstPart, this.size - firstPart);
+        this.elements = newElements;
+        this.head = 0;
+    }
+
+}
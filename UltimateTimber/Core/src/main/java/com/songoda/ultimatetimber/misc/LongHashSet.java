@@ -0,0 +1,194 @@
+package com.songoda.ultimatetimber.misc;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * An open addressing hash set of primitive longs
+ * Used for tracking packed block positions without boxing
+ */
+public class LongHashSet {
+
+    private static final long FREE = 0L;
+    private static final float LOAD_FACTOR = 0.5F;
+
+    private long[] keys;
+    private boolean containsFree;
+    private int mask;
+    private int size;
+    private int maxFill;
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    public LongHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        this.allocate(capacity);
+    }
+
+    /**
+     * Adds a value to this set
+     *
+     * @param value The value to add
+     * @return True if the value was not already in the set, otherwise false
+     */
+    public boolean add(long value) {
+        if (value == FREE) {
+            if (this.containsFree)
+                return false;
+            this.containsFree = true;
+            this.size++;
+            return true;
+        }
+
+        int slot = this.slot(value);
+        while (this.keys[slot] != FREE) {
+            if (this.keys[slot] == value)
+                return false;
+            slot = (slot + 1) & this.mask;
+        }
+
+        this.keys[slot] = value;
+        if (++this.size >= this.maxFill)
+            this.rehash(this.keys.length << 1);
+        return true;
+    }
+
+    /**
+     * Checks if a value is in this set
+     *
+     * @param value The value to check
+     * @return True if the value is in this set, otherwise false
+     */
+    public boolean contains(long value) {
+        if (value == FREE)
+            return this.containsFree;
+
+        int slot = this.slot(value);
+        long key;
+        while ((key = this.keys[slot]) != FREE) {
+            if (key == value)
+                return true;
+            slot = (slot + 1) & this.mask;
+        }
+        return false;
+    }
+
+    /**
+     * Removes a value from this set
+     *
+     * @param value The value to remove
+     * @return True if the value was in this set, otherwise false
+     */
+    public boolean remove(long value) {
+        if (value == FREE) {
+            if (!this.containsFree)
+                return false;
+            this.containsFree = false;
+            this.size--;
+            return true;
+        }
+
+        int slot = this.slot(value);
+        long key;
+        while ((key = this.keys[slot]) != FREE) {
+            if (key == value) {
+                this.shiftKeys(slot);
+                this.size--;
+                return true;
+            }
+            slot = (slot + 1) & this.mask;
+        }
+        return false;
+    }
+
+    /**
+     * Runs an action for every value in this set, in no particular order
+     *
+     * @param action The action to run
+     */
+    public void forEach(LongConsumer action) {
+        if (this.containsFree)
+            action.accept(FREE);
+        for (long key : this.keys)
+            if (key != FREE)
+                action.accept(key);
+    }
+
+    /**
+     * Gets the number of values in this set
+     *
+     * @return The number of values in this set
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Checks if this set is empty
+     *
+     * @return True if this set has no values, otherwise false
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Removes all values from this set
+     */
+    public void clear() {
+        Arrays.fill(this.keys, FREE);
+        this.containsFree = false;
+        this.size = 0;
+    }
+
+    /**
+     * Closes the gap left by a removed key so that linear probing keeps finding the keys after it
+     *
+     * @param slot The slot that was emptied
+     */
+    private void shiftKeys(int slot) {
+        int last;
+        long key;
+        while (true) {
+            slot = ((last = slot) + 1) & this.mask;
+            while (true) {
+                if ((key = this.keys[slot]) == FREE) {
+                    this.keys[last] = FREE;
+                    return;
+                }
+                int ideal = this.slot(key);
+                if (last <= slot ? last >= ideal || ideal > slot : last >= ideal && ideal > slot)
+                    break;
+                slot = (slot + 1) & this.mask;
+            }
+            this.keys[last] = key;
+        }
+    }
+
+    private int slot(long value) {
+        long hash = value * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & this.mask;
+    }
+
+    private void allocate(int capacity) {
+        this.keys = new long[capacity];
+        this.mask = capacity - 1;
+        this.maxFill = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = this.keys;
+        this.allocate(capacity);
+        for (long key : oldKeys) {
+            if (key == FREE)
+                continue;
+            int slot = this.slot(key);
+            while (this.keys[slot] != FREE)
+                slot = (slot + 1) & this.mask;
+            this.keys[slot] = key;
+        }
+    }
+
+}
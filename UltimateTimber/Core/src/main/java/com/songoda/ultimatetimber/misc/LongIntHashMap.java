@@ -0,0 +1,226 @@
+package com.songoda.ultimatetimber.misc;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * An open addressing hash map from primitive longs to primitive ints
+ * Used for attaching data to packed block positions without boxing
+ */
+public class LongIntHashMap {
+
+    private static final long FREE = 0L;
+    private static final float LOAD_FACTOR = 0.5F;
+
+    private long[] keys;
+    private int[] values;
+    private boolean containsFree;
+    private int freeValue;
+    private int mask;
+    private int size;
+    private int maxFill;
+
+    public LongIntHashMap() {
+        this(16);
+    }
+
+    public LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        this.allocate(capacity);
+    }
+
+    /**
+     * Gets the value mapped to a key
+     *
+     * @param key          The key to look up
+     * @param defaultValue The value to return if the key is not mapped
+     * @return The value mapped to the key, or the default value
+     */
+    public int get(long key, int defaultValue) {
+        if (key == FREE)
+            return this.containsFree ? this.freeValue : defaultValue;
+
+        int slot = this.slot(key);
+        long current;
+        while ((current = this.keys[slot]) != FREE) {
+            if (current == key)
+                return this.values[slot];
+            slot = (slot + 1) & this.mask;
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Maps a key to a value, replacing any previous value
+     *
+     * @param key   The key
+     * @param value The value
+     */
+    public void put(long key, int value) {
+        if (key == FREE) {
+            if (!this.containsFree) {
+                this.containsFree = true;
+                this.size++;
+            }
+            this.freeValue = value;
+            return;
+        }
+
+        int slot = this.slot(key);
+        long current;
+        while ((current = this.keys[slot]) != FREE) {
+            if (current == key) {
+                this.values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & this.mask;
+        }
+
+        this.keys[slot] = key;
+        this.values[slot] = value;
+        if (++this.size >= this.maxFill)
+            this.rehash(this.keys.length << 1);
+    }
+
+    /**
+     * Removes the mapping of a key
+     *
+     * @param key The key to remove
+     * @return True if the key was mapped, otherwise false
+     */
+    public boolean remove(long key) {
+        if (key == FREE) {
+            if (!this.containsFree)
+                return false;
+            this.containsFree = false;
+            this.size--;
+            return true;
+        }
+
+        int slot = this.slot(key);
+        long current;
+        while ((current = this.keys[slot]) != FREE) {
+            if (current == key) {
+                this.shiftKeys(slot);
+                this.size--;
+                return true;
+            }
+            slot = (slot + 1) & this.mask;
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a key is mapped to a value
+     *
+     * @param key The key to check
+     * @return True if the key is mapped, otherwise false
+     */
+    public boolean containsKey(long key) {
+        if (key == FREE)
+            return this.containsFree;
+
+        int slot = this.slot(key);
+        long current;
+        while ((current = this.keys[slot]) != FREE) {
+            if (current == key)
+                return true;
+            slot = (slot + 1) & this.mask;
+        }
+        return false;
+    }
+
+    /**
+     * Runs an action for every key in this map, in no particular order
+     *
+     * @param action The action to run
+     */
+    public void forEachKey(LongConsumer action) {
+        if (this.containsFree)
+            action.accept(FREE);
+        for (long key : this.keys)
+            if (key != FREE)
+                action.accept(key);
+    }
+
+    /**
+     * Gets the number of keys in this map
+     *
+     * @return The number of keys in this map
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Checks if this map is empty
+     *
+     * @return True if this map has no keys, otherwise false
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Removes all keys from this map
+     */
+    public void clear() {
+        Arrays.fill(this.keys, FREE);
+        this.containsFree = false;
+        this.size = 0;
+    }
+
+    /**
+     * Closes the gap left by a removed key so that linear probing keeps finding the keys after it
+     *
+     * @param slot The slot that was emptied
+     */
+    private void shiftKeys(int slot) {
+        int last;
+        long key;
+        while (true) {
+            slot = ((last = slot) + 1) & this.mask;
+            while (true) {
+                if ((key = this.keys[slot]) == FREE) {
+                    this.keys[last] = FREE;
+                    return;
+                }
+                int ideal = this.slot(key);
+                if (last <= slot ? last >= ideal || ideal > slot : last >= ideal && ideal > slot)
+                    break;
+                slot = (slot + 1) & this.mask;
+            }
+            this.keys[last] = key;
+            this.values[last] = this.values[slot];
+        }
+    }
+
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & this.mask;
+    }
+
+    private void allocate(int capacity) {
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+        this.mask = capacity - 1;
+        this.maxFill = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = this.keys;
+        int[] oldValues = this.values;
+        this.allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key == FREE)
+                continue;
+            int slot = this.slot(key);
+            while (this.keys[slot] != FREE)
+                slot = (slot + 1) & this.mask;
+            this.keys[slot] = key;
+            this.values[slot] = oldValues[i];
+        }
+    }
+
+}
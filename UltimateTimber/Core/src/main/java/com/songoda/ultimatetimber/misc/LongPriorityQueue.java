@@ -0,0 +1,126 @@
+package com.songoda.ultimatetimber.misc;
+
+import java.util.function.LongToIntFunction;
+
+/**
+ * A queue of primitive longs that always removes the value with the lowest priority first
+ * Backed by a binary heap, values with the same priority are removed in no particular order
+ */
+public class LongPriorityQueue {
+
+    private final LongToIntFunction priority;
+    private long[] elements;
+    private int size;
+
+    public LongPriorityQueue(LongToIntFunction priority) {
+        this(priority, 64);
+    }
+
+    public LongPriorityQueue(LongToIntFunction priority, int initialCapacity) {
+        this.priority = priority;
+        this.elements = new long[Math.max(2, initialCapacity)];
+    }
+
+    /**
+     * Adds a value to this queue
+     *
+     * @param value The value to add
+     */
+    public void add(long value) {
+        if (this.size == this.elements.length) {
+            long[] newElements = new long[this.elements.length << 1];
+            System.arraycopy(this.elements, 0, newElements, 0, this.size);
+            this.elements = newElements;
+        }
+
+        // Sift up
+        int index = this.size++;
+        int valuePriority = this.priority.applyAsInt(value);
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            long parentValue = this.elements[parent];
+            if (this.priority.applyAsInt(parentValue) <= valuePriority)
+                break;
+            this.elements[index] = parentValue;
+            index = parent;
+        }
+        this.elements[index] = value;
+    }
+
+    /**
+     * Removes the value with the lowest priority from this queue
+     *
+     * @return The value with the lowest priority
+     * @throws IllegalStateException If this queue is empty
+     */
+    public long poll() {
+        if (this.size == 0)
+            throw new IllegalStateException("Queue is empty");
+
+        long result = this.elements[0];
+        long value = this.elements[--this.size];
+        int valuePriority = this.priority.applyAsInt(value);
+
+        // Sift down
+        int index = 0;
+        int half = this.size >>> 1;
+        while (index < half) {
+            int child = (index << 1) + 1;
+            long childValue = this.elements[child];
+            int childPriority = this.priority.applyAsInt(childValue);
+            int right = child + 1;
+            if (right < this.size) {
+                int rightPriority = this.priority.applyAsInt(this.elements[right]);
+                if (rightPriority < childPriority) {
+                    child = right;
+                    childValue = this.elements[right];
+                    childPriority = rightPriority;
+                }
+            }
+            if (valuePriority <= childPriority)
+                break;
+            this.elements[index] = childValue;
+            index = child;
+        }
+        this.elements[index] = value;
+        return result;
+    }
+
+    /**
+     * Gets the value with the lowest priority without removing it
+     *
+     * @return The value with the lowest priority
+     * @throws IllegalStateException If this queue is empty
+     */
+    public long peek() {
+        if (this.size == 0)
+            throw new IllegalStateException("Queue is empty");
+        return this.elements[0];
+    }
+
+    /**
+     * Gets the number of values in this queue
+     *
+     * @return The number of values in this queue
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Checks if this queue is empty
+     *
+     * @return True if this queue has no values, otherwise false
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Removes all values from this queue
+     */
+    public void clear() {
+        this.size = 0;
+    }
+
+}
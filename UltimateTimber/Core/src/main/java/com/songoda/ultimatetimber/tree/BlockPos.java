@@ -0,0 +1,143 @@
+package com.songoda.ultimatetimber.tree;
+
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+import java.util.UUID;
+
+/**
+ * The position of a block in a World, made of the World's id and the packed coordinates of the block
+ * The static methods pack block coordinates into a single long so they can be stored and compared without allocating
+ * 26 bits are used for X and Z and 12 bits for Y, which covers the entire world border and build height
+ */
+public final class BlockPos {
+
+    private static final int XZ_BITS = 26;
+    private static final int Y_BITS = 12;
+    private static final long XZ_MASK = (1L << XZ_BITS) - 1;
+    private static final long Y_MASK = (1L << Y_BITS) - 1;
+    private static final int X_SHIFT = XZ_BITS + Y_BITS;
+    private static final int Z_SHIFT = Y_BITS;
+
+    private final UUID worldId;
+    private final long packed;
+
+    public BlockPos(UUID worldId, long packed) {
+        this.worldId = worldId;
+        this.packed = packed;
+    }
+
+    public BlockPos(World world, int x, int y, int z) {
+        this(world.getUID(), pack(x, y, z));
+    }
+
+    public BlockPos(Block block) {
+        this(block.getWorld(), block.getX(), block.getY(), block.getZ());
+    }
+
+    /**
+     * @return The id of the World the block is in
+     */
+    public UUID getWorldId() {
+        return this.worldId;
+    }
+
+    /**
+     * @return The packed coordinates of the block
+     */
+    public long getPacked() {
+        return this.packed;
+    }
+
+    /**
+     * @return The X coordinate of the block
+     */
+    public int getX() {
+        return unpackX(this.packed);
+    }
+
+    /**
+     * @return The Y coordinate of the block
+     */
+    public int getY() {
+        return unpackY(this.packed);
+    }
+
+    /**
+     * @return The Z coordinate of the block
+     */
+    public int getZ() {
+        return unpackZ(this.packed);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * this.worldId.hashCode() + Long.hashCode(this.packed * 0x9E3779B97F4A7C15L);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof BlockPos)) return false;
+        if (o == this) return true;
+        BlockPos oBlockPos = (BlockPos) o;
+        return oBlockPos.packed == this.packed && oBlockPos.worldId.equals(this.worldId);
+    }
+
+    @Override
+    public String toString() {
+        return "BlockPos{worldId=" + this.worldId + ", x=" + this.getX() + ", y=" + this.getY() + ", z=" + this.getZ() + "}";
+    }
+
+    /**
+     * Packs the given block coordinates into a long
+     *
+     * @param x The X coordinate
+     * @param y The Y coordinate
+     * @param z The Z coordinate
+     * @return The packed coordinates
+     */
+    public static long pack(int x, int y, int z) {
+        return ((long) x & XZ_MASK) << X_SHIFT | ((long) z & XZ_MASK) << Z_SHIFT | ((long) y & Y_MASK);
+    }
+
+    /**
+     * Packs the coordinates of the given block into a long
+     *
+     * @param block The Block
+     * @return The packed coordinates
+     */
+    public static long pack(Block block) {
+        return pack(block.getX(), block.getY(), block.getZ());
+    }
+
+    /**
+     * Gets the X coordinate of packed coordinates
+     *
+     * @param packed The packed coordinates
+     * @return The X coordinate
+     */
+    public static int unpackX(long packed) {
+        return (int) (packed >> X_SHIFT);
+    }
+
+    /**
+     * Gets the Y coordinate of packed coordinates
+     *
+     * @param packed The packed coordinates
+     * @return The Y coordinate
+     */
+    public static int unpackY(long packed) {
+        return (int) (packed << (64 - Y_BITS) >> (64 - Y_BITS));
+    }
+
+    /**
+     * Gets the Z coordinate of packed coordinates
+     *
+     * @param packed The packed coordinates
+     * @return The Z coordinate
+     */
+    public static int unpackZ(long packed) {
+        return (int) (packed << XZ_BITS >> (64 - XZ_BITS));
+    }
+
+}
@@ -0,0 +1,317 @@
+package com.songoda.ultimatetimber.tree;
+
+import com.songoda.ultimatetimber.misc.LongHashSet;
+import com.songoda.ultimatetimber.misc.LongIntHashMap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.LongConsumer;
+
+/**
+ * A set of block positions across Worlds, stored as packed coordinates per World without boxing
+ * Can be limited to a number of positions, in which case the oldest added positions are removed first
+ */
+public class BlockPosSet {
+
+    private static final int NOT_FOUND = -1;
+
+    // Maps the packed positions of each World to the insertion they were added with
+    private final Map<UUID, LongIntHashMap> worlds;
+    // The packed positions of each World grouped by the chunk they are in, so an area can be looked up without going over the whole World
+    private final Map<UUID, Map<Long, LongHashSet>> chunks;
+    private final int maxSize;
+    private int size, insertions;
+
+    // The positions in the order they were added, only kept if the set is limited
+    // Entries of positions that were removed or added again since are skipped once they come up
+    private final List<UUID> worldIds;
+    private long[] queuePositions;
+    private int[] queueInsertions, queueWorlds;
+    private int queueHead, queueSize;
+
+    /**
+     * Creates a BlockPosSet without a limit
+     */
+    public BlockPosSet() {
+        this(NOT_FOUND);
+    }
+
+    /**
+     * Creates a BlockPosSet that holds up to the given number of positions
+     *
+     * @param maxSize The number of positions to hold on to, or -1 for no limit
+     */
+    public BlockPosSet(int maxSize) {
+        this.worlds = new HashMap<>();
+        this.chunks = new HashMap<>();
+        this.maxSize = maxSize;
+        this.worldIds = new ArrayList<>();
+        if (maxSize >= 0) {
+            this.queuePositions = new long[16];
+            this.queueInsertions = new int[16];
+            this.queueWorlds = new int[16];
+        }
+    }
+
+    /**
+     * Adds a block position, removing the oldest position if the set is full
+     *
+     * @param worldId The id of the World of the block
+     * @param packed  The packed coordinates of the block
+     * @return True if the position was not already in the set, otherwise false
+     */
+    public boolean add(UUID worldId, long packed) {
+        LongIntHashMap positions = this.worlds.computeIfAbsent(worldId, x -> new LongIntHashMap());
+        if (positions.containsKey(packed))
+            return false;
+
+        int insertion = this.insertions++;
+        positions.put(packed, insertion);
+        this.chunks.computeIfAbsent(worldId, x -> new HashMap<>()).computeIfAbsent(getChunkKey(packed), x -> new LongHashSet()).add(packed);
+        this.size++;
+
+        if (this.maxSize >= 0) {
+            this.enqueue(worldId, packed, insertion);
+            while (this.size > this.maxSize)
+                this.removeOldest();
+        }
+
+        return true;
+    }
+
+    /**
+     * Adds a block position, removing the oldest position if the set is full
+     *
+     * @param blockPos The BlockPos of the block
+     * @return True if the position was not already in the set, otherwise false
+     */
+    public boolean add(BlockPos blockPos) {
+        return this.add(blockPos.getWorldId(), blockPos.getPacked());
+    }
+
+    /**
+     * Removes a block position
+     *
+     * @param worldId The id of the World of the block
+     * @param packed  The packed coordinates of the block
+     * @return True if the position was in the set, otherwise false
+     */
+    public boolean remove(UUID worldId, long packed) {
+        LongIntHashMap positions = this.worlds.get(worldId);
+        if (positions == null || !positions.remove(packed))
+            return false;
+
+        Map<Long, LongHashSet> chunks = this.chunks.get(worldId);
+        long chunkKey = getChunkKey(packed);
+        LongHashSet chunk = chunks.get(chunkKey);
+        chunk.remove(packed);
+        if (chunk.isEmpty())
+            chunks.remove(chunkKey);
+
+        this.size--;
+        return true;
+    }
+
+    /**
+     * Removes a block position
+     *
+     * @param blockPos The BlockPos of the block
+     * @return True if the position was in the set, otherwise false
+     */
+    public boolean remove(BlockPos blockPos) {
+        return this.remove(blockPos.getWorldId(), blockPos.getPacked());
+    }
+
+    /**
+     * Checks if a block position is in this set
+     *
+     * @param worldId The id of the World of the block
+     * @param packed  The packed coordinates of the block
+     * @return True if the position is in this set, otherwise false
+     */
+    public boolean contains(UUID worldId, long packed) {
+        LongIntHashMap positions = this.worlds.get(worldId);
+        return positions != null && positions.containsKey(packed);
+    }
+
+    /**
+     * Checks if a block position is in this set
+     *
+     * @param blockPos The BlockPos of the block
+     * @return True if the position is in this set, otherwise false
+     */
+    public boolean contains(BlockPos blockPos) {
+        return this.contains(blockPos.getWorldId(), blockPos.getPacked());
+    }
+
+    /**
+     * Runs an action for the packed coordinates of every block position in a World, in no particular order
+     *
+     * @param worldId The id of the World
+     * @param action  The action to run
+     */
+    public void forEach(UUID worldId, LongConsumer action) {
+        LongIntHashMap positions = this.worlds.get(worldId);
+        if (positions != null)
+            positions.forEachKey(action);
+    }
+
+    /**
+     * Runs an action for the packed coordinates of every block position in a chunk, in no particular order
+     *
+     * @param worldId The id of the World
+     * @param chunkX  The X coordinate of the chunk
+     * @param chunkZ  The Z coordinate of the chunk
+     * @param action  The action to run
+     */
+    public void forEachInChunk(UUID worldId, int chunkX, int chunkZ, LongConsumer action) {
+        Map<Long, LongHashSet> chunks = this.chunks.get(worldId);
+        if (chunks == null)
+            return;
+
+        LongHashSet chunk = chunks.get(getChunkKey(chunkX, chunkZ));
+        if (chunk != null)
+            chunk.forEach(action);
+    }
+
+    /**
+     * Removes every block position of a World
+     *
+     * @param worldId The id of the World
+     */
+    public void removeAll(UUID worldId) {
+        LongIntHashMap positions = this.worlds.remove(worldId);
+        this.chunks.remove(worldId);
+        if (positions != null)
+            this.size -= positions.size();
+    }
+
+    /**
+     * Gets the number of block positions in this set
+     *
+     * @return The number of block positions
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Checks if this set is empty
+     *
+     * @return True if this set has no block positions, otherwise false
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Removes every block position from this set
+     */
+    public void clear() {
+        this.worlds.clear();
+        this.chunks.clear();
+        this.worldIds.clear();
+        this.size = 0;
+        this.queueHead = 0;
+        this.queueSize = 0;
+    }
+
+    private static long getChunkKey(long packed) {
+        return getChunkKey(BlockPos.unpackX(packed) >> 4, BlockPos.unpackZ(packed) >> 4);
+    }
+
+    private static long getChunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Adds a position to the end of the insertion order
+     */
+    private void enqueue(UUID worldId, long packed, int insertion) {
+        // Skipped entries pile up if positions keep being removed before the set is full, so they are cleared out now and then
+        if (this.queueSize == this.queuePositions.length) {
+            if (this.queueSize >= this.size * 2) {
+                this.compactQueue();
+            } else {
+                this.growQueue();
+            }
+        }
+
+        int worldIndex = this.worldIds.indexOf(worldId);
+        if (worldIndex == NOT_FOUND) {
+            worldIndex = this.worldIds.size();
+            this.worldIds.add(worldId);
+        }
+
+        int slot = (this.queueHead + this.queueSize++) & (this.queuePositions.length - 1);
+        this.queuePositions[slot] = packed;
+        this.queueInsertions[slot] = insertion;
+        this.queueWorlds[slot] = worldIndex;
+    }
+
+    /**
+     * Removes the oldest position that is still in this set
+     */
+    private void removeOldest() {
+        while (this.queueSize > 0) {
+            int slot = this.queueHead;
+            this.queueHead = (this.queueHead + 1) & (this.queuePositions.length - 1);
+            this.queueSize--;
+
+            if (this.isCurrent(slot)) {
+                this.remove(this.worldIds.get(this.queueWorlds[slot]), this.queuePositions[slot]);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Checks if a queued entry is the latest insertion of a position that is still in this set
+     */
+    private boolean isCurrent(int slot) {
+        LongIntHashMap positions = this.worlds.get(this.worldIds.get(this.queueWorlds[slot]));
+        return positions != null && positions.get(this.queuePositions[slot], this.queueInsertions[slot] + 1) == this.queueInsertions[slot];
+    }
+
+    private void compactQueue() {
+        int mask = this.queuePositions.length - 1;
+        int kept = 0;
+        for (int i = 0; i < this.queueSize; i++) {
+            int slot = (this.queueHead + i) & mask;
+            if (!this.isCurrent(slot))
+                continue;
+
+            // Entries only ever move towards the start, so none are overwritten before they are looked at
+            int target = (this.queueHead + kept++) & mask;
+            this.queuePositions[target] = this.queuePositions[slot];
+            this.queueInsertions[target] = this.queueInsertions[slot];
+            this.queueWorlds[target] = this.queueWorlds[slot];
+        }
+        this.queueSize = kept;
+
+        if (this.queueSize == this.queuePositions.length)
+            this.growQueue();
+    }
+
+    private void growQueue() {
+        int capacity = this.queuePositions.length << 1;
+        long[] queuePositions = new long[capacity];
+        int[] queueInsertions = new int[capacity];
+        int[] queueWorlds = new int[capacity];
+        int mask = this.queuePositions.length - 1;
+        for (int i = 0; i < this.queueSize; i++) {
+            int slot = (this.queueHead + i) & mask;
+            queuePositions[i] = this.queuePositions[slot];
+            queueInsertions[i] = this.queueInsertions[slot];
+            queueWorlds[i] = this.queueWorlds[slot];
+        }
+        this.queuePositions = queuePositions;
+        this.queueInsertions = queueInsertions;
+        this.queueWorlds = queueWorlds;
+        this.queueHead = 0;
+    }
+
+}
@@ -0,0 +1,57 @@
+package com.songoda.ultimatetimber.tree;
+
+import com.songoda.core.compatibility.CompatibleMaterial;
+import org.bukkit.World;
+import org.bukkit.block.BlockFace;
+
+/**
+ * Provides the block information that tree detection needs by integer coordinates
+ */
+public interface BlockSource {
+
+    /**
+     * Gets the World the blocks of this source are in
+     *
+     * @return The World, or null if the blocks aren't part of a World
+     */
+    World getWorld();
+
+    /**
+     * Gets the material of the block at the given coordinates
+     *
+     * @param x The X coordinate
+     * @param y The Y coordinate
+     * @param z The Z coordinate
+     * @return The CompatibleMaterial of the block, AIR if the block is not available
+     */
+    CompatibleMaterial getMaterial(int x, int y, int z);
+
+    /**
+     * Gets if the block at the given coordinates was placed by a player
+     *
+     * @param x The X coordinate
+     * @param y The Y coordinate
+     * @param z The Z coordinate
+     * @return True if the block was placed, otherwise false
+     */
+    boolean isPlaced(int x, int y, int z);
+
+    /**
+     * Gets the axis the block at the given coordinates is lying along, such as the axis of a log
+     *
+     * @param x The X coordinate
+     * @param y The Y coordinate
+     * @param z The Z coordinate
+     * @return EAST for the X axis, UP for the Y axis, SOUTH for the Z axis, or null if the block has no axis or it isn't known
+     */
+    BlockFace getAxis(int x, int y, int z);
+
+    /**
+     * Lets go of any chunks that were snapshotted while reading, so blocks read afterwards reflect changes made since
+     * Called at the start of every step of a detection, as the steps of a detection may be spread over multiple ticks
+     */
+    default void releaseSnapshots() {
+
+    }
+
+}
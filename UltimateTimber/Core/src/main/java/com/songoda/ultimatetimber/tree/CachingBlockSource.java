@@ -0,0 +1,117 @@
+package com.songoda.ultimatetimber.tree;
+
+import com.songoda.core.compatibility.CompatibleMaterial;
+import com.songoda.ultimatetimber.misc.LongIntHashMap;
+import org.bukkit.World;
+import org.bukkit.block.BlockFace;
+
+/**
+ * Remembers what another BlockSource returned for each block, so every block is only read from it once
+ * Meant to live for a single detection, it never sees changes made to the blocks afterwards
+ */
+public class CachingBlockSource implements BlockSource {
+
+    private static final CompatibleMaterial[] MATERIALS = CompatibleMaterial.values();
+
+    // Each cached block is stored as its material ordinal + 1 with the placed state in the bits above it
+    private static final int MATERIAL_MASK = 0xFFFF;
+    private static final int UNKNOWN_MATERIAL = 0xFFFF;
+    private static final int PLACED_KNOWN = 1 << 16;
+    private static final int PLACED = 1 << 17;
+
+    private final BlockSource blockSource;
+    private final LongIntHashMap cells;
+    private int minReadX, minReadZ, maxReadX, maxReadZ;
+
+    public CachingBlockSource(BlockSource blockSource) {
+        this.blockSource = blockSource;
+        this.cells = new LongIntHashMap(256);
+        this.minReadX = this.minReadZ = Integer.MAX_VALUE;
+        this.maxReadX = this.maxReadZ = Integer.MIN_VALUE;
+    }
+
+    @Override
+    public World getWorld() {
+        return this.blockSource.getWorld();
+    }
+
+    @Override
+    public CompatibleMaterial getMaterial(int x, int y, int z) {
+        long position = BlockPos.pack(x, y, z);
+        int cell = this.cells.get(position, 0);
+        int material = cell & MATERIAL_MASK;
+        if (material == 0) {
+            this.minReadX = Math.min(this.minReadX, x);
+            this.minReadZ = Math.min(this.minReadZ, z);
+            this.maxReadX = Math.max(this.maxReadX, x);
+            this.maxReadZ = Math.max(this.maxReadZ, z);
+
+            CompatibleMaterial compatibleMaterial = this.blockSource.getMaterial(x, y, z);
+            material = compatibleMaterial == null ? UNKNOWN_MATERIAL : compatibleMaterial.ordinal() + 1;
+            this.cells.put(position, cell | material);
+        }
+        return material == UNKNOWN_MATERIAL ? null : MATERIALS[material - 1];
+    }
+
+    @Override
+    public boolean isPlaced(int x, int y, int z) {
+        long position = BlockPos.pack(x, y, z);
+        int cell = this.cells.get(position, 0);
+        if ((cell & PLACED_KNOWN) == 0) {
+            cell |= PLACED_KNOWN;
+            if (this.blockSource.isPlaced(x, y, z))
+                cell |= PLACED;
+            this.cells.put(position, cell);
+        }
+        return (cell & PLACED) != 0;
+    }
+
+    @Override
+    public BlockFace getAxis(int x, int y, int z) {
+        // Only ever asked for once or twice per detection, not worth remembering
+        return this.blockSource.getAxis(x, y, z);
+    }
+
+    @Override
+    public void releaseSnapshots() {
+        // Blocks that have already been read are kept, a detection only ever sees one state of each block
+        this.blockSource.releaseSnapshots();
+    }
+
+    /**
+     * Gets the lowest X coordinate of any block that has been read
+     *
+     * @return The lowest X coordinate read
+     */
+    public int getMinReadX() {
+        return this.minReadX;
+    }
+
+    /**
+     * Gets the lowest Z coordinate of any block that has been read
+     *
+     * @return The lowest Z coordinate read
+     */
+    public int getMinReadZ() {
+        return this.minReadZ;
+    }
+
+    /**
+     * Gets the highest X coordinate of any block that has been read
+     *
+     * @return The highest X coordinate read
+     */
+    public int getMaxReadX() {
+        return this.maxReadX;
+    }
+
+    /**
+     * Gets the highest Z coordinate of any block that has been read
+     *
+     * @return The highest Z coordinate read
+     */
+    public int getMaxReadZ() {
+        return this.maxReadZ;
+    }
+
+}
@@ -0,0 +1,197 @@
+package com.songoda.ultimatetimber.tree;
+
+import com.songoda.core.compatibility.CompatibleMaterial;
+import com.songoda.core.compatibility.ServerVersion;
+import com.songoda.ultimatetimber.misc.LongHashSet;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.BlockFace;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * A BlockSource backed by ChunkSnapshots, safe to read from any thread once captured
+ * Blocks outside of the captured area or in chunks that weren't loaded are treated as AIR
+ */
+public class ChunkSnapshotBlockSource implements BlockSource {
+
+    // Before 1.13 the data value of a block is needed to tell its material apart, snapshots only give it through a
+    // method that now returns BlockData instead
+    private static final MethodHandle LEGACY_GET_DATA = getLegacyGetData();
+
+    private final World world;
+    private final int minChunkX, minChunkZ, chunksX, chunksZ;
+    private final int minHeight, maxHeight;
+    private final boolean hasBlockData;
+    private final ChunkSnapshot[] snapshots;
+    private final LongHashSet placedBlocks;
+
+    private ChunkSnapshotBlockSource(World world, int minChunkX, int minChunkZ, int chunksX, int chunksZ, LongHashSet placedBlocks) {
+        this.world = world;
+        this.minChunkX = minChunkX;
+        this.minChunkZ = minChunkZ;
+        this.chunksX = chunksX;
+        this.chunksZ = chunksZ;
+        this.minHeight = ServerVersion.isServerVersionAtLeast(ServerVersion.V1_17) ? world.getMinHeight() : 0;
+        this.maxHeight = world.getMaxHeight();
+        this.hasBlockData = ServerVersion.isServerVersionAtLeast(ServerVersion.V1_13);
+        this.snapshots = new ChunkSnapshot[chunksX * chunksZ];
+        this.placedBlocks = placedBlocks;
+    }
+
+    /**
+     * Captures the loaded chunks covering the given block area
+     * Must be called from the main server thread, chunks will not be loaded
+     *
+     * @param world        The World to capture
+     * @param minX         The lowest X block coordinate to capture
+     * @param minZ         The lowest Z block coordinate to capture
+     * @param maxX         The highest X block coordinate to capture
+     * @param maxZ         The highest Z block coordinate to capture
+     * @param placedBlocks The packed positions of placed blocks within the area
+     * @return A new ChunkSnapshotBlockSource
+     */
+    public static ChunkSnapshotBlockSource capture(World world, int minX, int minZ, int maxX, int maxZ, LongHashSet placedBlocks) {
+        int minChunkX = minX >> 4, minChunkZ = minZ >> 4;
+        int chunksX = (maxX >> 4) - minChunkX + 1, chunksZ = (maxZ >> 4) - minChunkZ + 1;
+        ChunkSnapshotBlockSource blockSource = new ChunkSnapshotBlockSource(world, minChunkX, minChunkZ, chunksX, chunksZ, placedBlocks);
+        for (int chunkX = 0; chunkX < chunksX; chunkX++)
+            for (int chunkZ = 0; chunkZ < chunksZ; chunkZ++)
+                if (world.isChunkLoaded(minChunkX + chunkX, minChunkZ + chunkZ))
+                    blockSource.snapshots[chunkX * chunksZ + chunkZ] = world.getChunkAt(minChunkX + chunkX, minChunkZ + chunkZ).getChunkSnapshot(false, false, false);
+        return blockSource;
+    }
+
+    /**
+     * Captures the loaded chunks covering a larger block area, keeping the snapshots of the chunks that were already captured
+     * Must be called from the main server thread, chunks will not be loaded
+     *
+     * @param minX         The lowest X block coordinate to capture
+     * @param minZ         The lowest Z block coordinate to capture
+     * @param maxX         The highest X block coordinate to capture
+     * @param maxZ         The highest Z block coordinate to capture
+     * @param placedBlocks The packed positions of placed blocks within the whole area
+     * @return A new ChunkSnapshotBlockSource covering both this area and the given one
+     */
+    public ChunkSnapshotBlockSource expand(int minX, int minZ, int maxX, int maxZ, LongHashSet placedBlocks) {
+        int minChunkX = Math.min(minX >> 4, this.minChunkX), minChunkZ = Math.min(minZ >> 4, this.minChunkZ);
+        int chunksX = Math.max(maxX >> 4, this.minChunkX + this.chunksX - 1) - minChunkX + 1;
+        int chunksZ = Math.max(maxZ >> 4, this.minChunkZ + this.chunksZ - 1) - minChunkZ + 1;
+        ChunkSnapshotBlockSource blockSource = new ChunkSnapshotBlockSource(this.world, minChunkX, minChunkZ, chunksX, chunksZ, placedBlocks);
+        for (int chunkX = 0; chunkX < chunksX; chunkX++) {
+            for (int chunkZ = 0; chunkZ < chunksZ; chunkZ++) {
+                int oldChunkX = minChunkX + chunkX - this.minChunkX, oldChunkZ = minChunkZ + chunkZ - this.minChunkZ;
+                if (oldChunkX >= 0 && oldChunkZ >= 0 && oldChunkX < this.chunksX && oldChunkZ < this.chunksZ) {
+                    blockSource.snapshots[chunkX * chunksZ + chunkZ] = this.snapshots[oldChunkX * this.chunksZ + oldChunkZ];
+                } else if (this.world.isChunkLoaded(minChunkX + chunkX, minChunkZ + chunkZ)) {
+                    blockSource.snapshots[chunkX * chunksZ + chunkZ] = this.world.getChunkAt(minChunkX + chunkX, minChunkZ + chunkZ).getChunkSnapshot(false, false, false);
+                }
+            }
+        }
+        return blockSource;
+    }
+
+    /**
+     * Checks if a block area is within the captured chunks
+     *
+     * @param minX The lowest X block coordinate of the area
+     * @param minZ The lowest Z block coordinate of the area
+     * @param maxX The highest X block coordinate of the area
+     * @param maxZ The highest Z block coordinate of the area
+     * @return True if the whole area was captured, otherwise false
+     */
+    public boolean covers(int minX, int minZ, int maxX, int maxZ) {
+        return minX >> 4 >= this.minChunkX && minZ >> 4 >= this.minChunkZ
+                && maxX >> 4 < this.minChunkX + this.chunksX && maxZ >> 4 < this.minChunkZ + this.chunksZ;
+    }
+
+    @Override
+    public World getWorld() {
+        return this.world;
+    }
+
+    @Override
+    public CompatibleMaterial getMaterial(int x, int y, int z) {
+        ChunkSnapshot snapshot = this.getSnapshot(x, y, z);
+        if (snapshot == null)
+            return CompatibleMaterial.AIR;
+
+        Material material = snapshot.getBlockType(x & 15, y, z & 15);
+        if (this.hasBlockData)
+            return CompatibleMaterial.getMaterial(material);
+
+        return CompatibleMaterial.getMaterial(material, getLegacyData(snapshot, x & 15, y, z & 15));
+    }
+
+    @Override
+    public boolean isPlaced(int x, int y, int z) {
+        return this.placedBlocks.contains(BlockPos.pack(x, y, z));
+    }
+
+    @Override
+    public BlockFace getAxis(int x, int y, int z) {
+        if (!this.hasBlockData)
+            return null;
+
+        ChunkSnapshot snapshot = this.getSnapshot(x, y, z);
+        if (snapshot == null)
+            return null;
+
+        return WorldBlockSource.getAxis(snapshot.getBlockData(x & 15, y, z & 15));
+    }
+
+    /**
+     * Gets the captured snapshot of the chunk a block is in
+     *
+     * @param x The X coordinate of the block
+     * @param y The Y coordinate of the block
+     * @param z The Z coordinate of the block
+     * @return The ChunkSnapshot, or null if the block is outside of the captured area or its chunk wasn't loaded
+     */
+    private ChunkSnapshot getSnapshot(int x, int y, int z) {
+        if (y < this.minHeight || y >= this.maxHeight)
+            return null;
+
+        int chunkX = (x >> 4) - this.minChunkX, chunkZ = (z >> 4) - this.minChunkZ;
+        if (chunkX < 0 || chunkZ < 0 || chunkX >= this.chunksX || chunkZ >= this.chunksZ)
+            return null;
+
+        return this.snapshots[chunkX * this.chunksZ + chunkZ];
+    }
+
+    /**
+     * Gets the legacy data value of a block in a snapshot
+     *
+     * @param snapshot The ChunkSnapshot of the chunk the block is in
+     * @param x        The X coordinate of the block within the chunk
+     * @param y        The Y coordinate of the block
+     * @param z        The Z coordinate of the block within the chunk
+     * @return The data value of the block, or 0 if it can't be read
+     */
+    private static byte getLegacyData(ChunkSnapshot snapshot, int x, int y, int z) {
+        if (LEGACY_GET_DATA == null)
+            return 0;
+
+        try {
+            return (byte) (int) LEGACY_GET_DATA.invokeExact(snapshot, x, y, z);
+        } catch (Throwable ex) {
+            return 0;
+        }
+    }
+
+    private static MethodHandle getLegacyGetData() {
+        if (ServerVersion.isServerVersionAtLeast(ServerVersion.V1_13))
+            return null;
+
+        try {
+            return MethodHandles.publicLookup().findVirtual(ChunkSnapshot.class, "getBlockData",
+                    MethodType.methodType(int.class, int.class, int.class, int.class));
+        } catch (ReflectiveOperationException ex) {
+            return null;
+        }
+    }
+
+}
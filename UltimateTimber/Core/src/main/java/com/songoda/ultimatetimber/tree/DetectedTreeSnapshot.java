@@ -0,0 +1,306 @@
+package com.songoda.ultimatetimber.tree;
+
+import com.songoda.core.compatibility.CompatibleMaterial;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+/**
+ * An immutable copy of a DetectedTree as it was at one point, stored as packed block positions
+ * Blocks are only looked up in the World when asked for, so holding on to a snapshot doesn't keep any Block instances around
+ */
+public class DetectedTreeSnapshot {
+
+    private final World world;
+    private final TreeDefinition treeDefinition;
+    private final DetectedTree.Directions direction;
+    private final long initialLogBlock;
+    private final boolean containsInitialLogBlock;
+
+    // Logs first, then leaves, each in the order of the DetectedTree
+    private final long[] positions;
+    private final int logCount;
+
+    // Taken when the snapshot is created, the blocks may be gone by the time they are asked for
+    private final CompatibleMaterial[] materials;
+
+    private final int minX, minY, minZ, maxX, maxY, maxZ;
+
+    public DetectedTreeSnapshot(DetectedTree detectedTree) {
+        this(detectedTree, null);
+    }
+
+    /**
+     * @param detectedTree The DetectedTree to take a snapshot of
+     * @param blockSource  The BlockSource to read the materials of the blocks from, or null to read them from the World
+     */
+    public DetectedTreeSnapshot(DetectedTree detectedTree, BlockSource blockSource) {
+        TreeBlockSet<Block> detectedTreeBlocks = detectedTree.getDetectedTreeBlocks();
+        ITreeBlock<Block> initialLogBlock = detectedTreeBlocks.getInitialLogBlock();
+
+        this.world = initialLogBlock.getWorld();
+        this.treeDefinition = detectedTree.getTreeDefinition();
+        this.direction = detectedTree.getDirection();
+        this.initialLogBlock = BlockPos.pack(initialLogBlock.getX(), initialLogBlock.getY(), initialLogBlock.getZ());
+        this.containsInitialLogBlock = detectedTreeBlocks.contains(initialLogBlock);
+
+        this.logCount = detectedTreeBlocks.getLogBlocks().size();
+        this.positions = new long[detectedTreeBlocks.size()];
+        this.materials = new CompatibleMaterial[this.positions.length];
+
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+        for (int i = 0; i < this.positions.length; i++) {
+            ITreeBlock<Block> treeBlock = i < this.logCount ? detectedTreeBlocks.getLogBlocks().get(i) : detectedTreeBlocks.getLeafBlocks().get(i - this.logCount);
+            int x = treeBlock.getX(), y = treeBlock.getY(), z = treeBlock.getZ();
+            this.positions[i] = BlockPos.pack(x, y, z);
+            this.materials[i] = blockSource != null ? blockSource.getMaterial(x, y, z) : CompatibleMaterial.getMaterial(treeBlock.getBlock());
+
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            minZ = Math.min(minZ, z);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+            maxZ = Math.max(maxZ, z);
+        }
+
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+    }
+
+    /**
+     * Gets the World this tree is in
+     *
+     * @return The World of this tree
+     */
+    public World getWorld() {
+        return this.world;
+    }
+
+    /**
+     * Gets the TreeDefinition of this tree
+     *
+     * @return The TreeDefinition of this tree
+     */
+    public TreeDefinition getTreeDefinition() {
+        return this.treeDefinition;
+    }
+
+    /**
+     * Gets the tree arrangement direction
+     *
+     * @return A Directions enum
+     */
+    public DetectedTree.Directions getDirection() {
+        return this.direction;
+    }
+
+    /**
+     * Gets the packed position of the block that initiated the tree topple
+     *
+     * @return The packed position of the initial log block
+     */
+    public long getInitialLogBlock() {
+        return this.initialLogBlock;
+    }
+
+    /**
+     * Checks if the initial log block is one of the blocks of this snapshot
+     * It isn't if it was already broken or destroyed before the snapshot was taken
+     *
+     * @return True if the initial log block is part of this snapshot, otherwise false
+     */
+    public boolean containsInitialLogBlock() {
+        return this.containsInitialLogBlock;
+    }
+
+    /**
+     * Gets the number of blocks in this snapshot
+     *
+     * @return The number of logs and leaves
+     */
+    public int size() {
+        return this.positions.length;
+    }
+
+    /**
+     * Gets the number of logs in this snapshot, the logs come before the leaves
+     *
+     * @return The number of logs
+     */
+    public int getLogCount() {
+        return this.logCount;
+    }
+
+    /**
+     * Gets the number of leaves in this snapshot
+     *
+     * @return The number of leaves
+     */
+    public int getLeafCount() {
+        return this.positions.length - this.logCount;
+    }
+
+    /**
+     * Gets the packed position of a block
+     *
+     * @param index The index of the block, from 0 to size() - 1
+     * @return The packed position of the block
+     */
+    public long getPosition(int index) {
+        return this.positions[index];
+    }
+
+    /**
+     * Gets the X coordinate of a block
+     *
+     * @param index The index of the block, from 0 to size() - 1
+     * @return The X coordinate of the block
+     */
+    public int getX(int index) {
+        return BlockPos.unpackX(this.positions[index]);
+    }
+
+    /**
+     * Gets the Y coordinate of a block
+     *
+     * @param index The index of the block, from 0 to size() - 1
+     * @return The Y coordinate of the block
+     */
+    public int getY(int index) {
+        return BlockPos.unpackY(this.positions[index]);
+    }
+
+    /**
+     * Gets the Z coordinate of a block
+     *
+     * @param index The index of the block, from 0 to size() - 1
+     * @return The Z coordinate of the block
+     */
+    public int getZ(int index) {
+        return BlockPos.unpackZ(this.positions[index]);
+    }
+
+    /**
+     * Gets if a block is a log or a leaf
+     *
+     * @param index The index of the block, from 0 to size() - 1
+     * @return The TreeBlockType of the block
+     */
+    public TreeBlockType getTreeBlockType(int index) {
+        if (index < 0 || index >= this.positions.length)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.positions.length);
+        return index < this.logCount ? TreeBlockType.LOG : TreeBlockType.LEAF;
+    }
+
+    /**
+     * Gets the material a block had when this snapshot was taken
+     *
+     * @param index The index of the block, from 0 to size() - 1
+     * @return The CompatibleMaterial of the block
+     */
+    public CompatibleMaterial getMaterial(int index) {
+        return this.materials[index];
+    }
+
+    /**
+     * Gets the number of blocks that had a material when this snapshot was taken
+     *
+     * @param material The CompatibleMaterial to count
+     * @return The number of blocks with the material
+     */
+    public int getMaterialCount(CompatibleMaterial material) {
+        int count = 0;
+        for (int i = 0; i < this.positions.length; i++)
+            if (this.materials[i] == material)
+                count++;
+        return count;
+    }
+
+    /**
+     * Gets a block as it currently is in the World
+     * Should only be called from the main server thread
+     *
+     * @param index The index of the block, from 0 to size() - 1
+     * @return The Block
+     */
+    public Block getBlock(int index) {
+        return this.world.getBlockAt(this.getX(index), this.getY(index), this.getZ(index));
+    }
+
+    /**
+     * Gets a block as a new TreeBlock
+     * Should only be called from the main server thread
+     *
+     * @param index The index of the block, from 0 to size() - 1
+     * @return A new TreeBlock
+     */
+    public ITreeBlock<Block> getTreeBlock(int index) {
+        return new TreeBlock(this.getBlock(index), this.getTreeBlockType(index));
+    }
+
+    /**
+     * @return The lowest X coordinate of the blocks, or Integer.MAX_VALUE if there are none
+     */
+    public int getMinX() {
+        return this.minX;
+    }
+
+    /**
+     * @return The lowest Y coordinate of the blocks, or Integer.MAX_VALUE if there are none
+     */
+    public int getMinY() {
+        return this.minY;
+    }
+
+    /**
+     * @return The lowest Z coordinate of the blocks, or Integer.MAX_VALUE if there are none
+     */
+    public int getMinZ() {
+        return this.minZ;
+    }
+
+    /**
+     * @return The highest X coordinate of the blocks, or Integer.MIN_VALUE if there are none
+     */
+    public int getMaxX() {
+        return this.maxX;
+    }
+
+    /**
+     * @return The highest Y coordinate of the blocks, or Integer.MIN_VALUE if there are none
+     */
+    public int getMaxY() {
+        return this.maxY;
+    }
+
+    /**
+     * @return The highest Z coordinate of the blocks, or Integer.MIN_VALUE if there are none
+     */
+    public int getMaxZ() {
+        return this.maxZ;
+    }
+
+    /**
+     * Creates a new DetectedTree of the blocks in this snapshot
+     * Should only be called from the main server thread
+     *
+     * @return A new DetectedTree
+     */
+    public DetectedTree toDetectedTree() {
+        TreeBlockSet<Block> detectedTreeBlocks = new TreeBlockSet<>(new TreeBlock(this.world.getBlockAt(
+                BlockPos.unpackX(this.initialLogBlock), BlockPos.unpackY(this.initialLogBlock), BlockPos.unpackZ(this.initialLogBlock)), TreeBlockType.LOG));
+        if (!this.containsInitialLogBlock)
+            detectedTreeBlocks.remove(detectedTreeBlocks.getInitialLogBlock());
+
+        for (int i = 0; i < this.positions.length; i++)
+            if (this.positions[i] != this.initialLogBlock)
+                detectedTreeBlocks.add(this.getTreeBlock(i));
+
+        return new DetectedTree(this.treeDefinition, detectedTreeBlocks, this.direction);
+    }
+
+}
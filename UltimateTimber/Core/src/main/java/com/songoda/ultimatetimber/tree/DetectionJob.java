@@ -0,0 +1,37 @@
+package com.songoda.ultimatetimber.tree;
+
+/**
+ * A tree detection that can be run a bit at a time, picking up where it left off
+ */
+public interface DetectionJob {
+
+    /**
+     * Continues the detection until it is done or has used up the given budget
+     *
+     * @param budget The maximum number of blocks to expand
+     * @return The part of the budget that was not used
+     */
+    int process(int budget);
+
+    /**
+     * Checks if the detection is done
+     *
+     * @return True if the detection is done, otherwise false
+     */
+    boolean isDone();
+
+    /**
+     * Gets the result of the detection once it is done
+     *
+     * @return A TreeSnapshot if a tree was found, otherwise null
+     */
+    TreeSnapshot getResult();
+
+    /**
+     * Gets the logs the detection looked at once it is done without finding a tree
+     *
+     * @return The packed positions of the logs, empty if a tree was found or the initial block isn't a log
+     */
+    long[] getRejectedLogBlocks();
+
+}
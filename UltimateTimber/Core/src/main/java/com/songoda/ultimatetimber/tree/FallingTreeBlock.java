@@ -1,16 +1,19 @@
 package com.songoda.ultimatetimber.tree;
 
 import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.entity.FallingBlock;
 
 public class FallingTreeBlock implements ITreeBlock<FallingBlock> {
 
     private final FallingBlock fallingBlock;
     private final TreeBlockType treeBlockType;
+    private final Location location;
 
     public FallingTreeBlock(FallingBlock fallingBlock, TreeBlockType treeBlockType) {
         this.fallingBlock = fallingBlock;
         this.treeBlockType = treeBlockType;
+        this.location = new Location(null, 0, 0, 0);
     }
 
     @Override
@@ -23,9 +26,47 @@ public class FallingTreeBlock implements ITreeBlock<FallingBlock> {
         return this.fallingBlock.getLocation();
     }
 
+    @Override
+    public Location getLocation(Location location) {
+        return this.fallingBlock.getLocation(location);
+    }
+
+    @Override
+    public World getWorld() {
+        return this.fallingBlock.getWorld();
+    }
+
+    /**
+     * The falling block keeps moving, so its position is looked up every time, reusing the same Location
+     */
+    @Override
+    public int getX() {
+        return this.fallingBlock.getLocation(this.location).getBlockX();
+    }
+
+    @Override
+    public int getY() {
+        return this.fallingBlock.getLocation(this.location).getBlockY();
+    }
+
+    @Override
+    public int getZ() {
+        return this.fallingBlock.getLocation(this.location).getBlockZ();
+    }
+
     @Override
     public TreeBlockType getTreeBlockType() {
         return this.treeBlockType;
     }
 
+    /**
+     * Gets the entity id of the falling block, since its position keeps changing
+     *
+     * @return The entity id of the falling block
+     */
+    @Override
+    public long getKey() {
+        return this.fallingBlock.getEntityId();
+    }
+
 }
@@ -1,6 +1,7 @@
 package com.songoda.ultimatetimber.tree;
 
 import org.bukkit.Location;
+import org.bukkit.World;
 
 public interface ITreeBlock<BlockType> {
 
@@ -13,11 +14,65 @@ public interface ITreeBlock<BlockType> {
 
     /**
      * Gets the location of this TreeBlock
+     * Creates a new Location every time, so prefer the coordinate getters where a Location isn't needed
      *
      * @return The Location of this TreeBlock
      */
     Location getLocation();
 
+    /**
+     * Copies the exact location of this TreeBlock into the given Location
+     * Taken from {@link #getLocation()} by default, implementations should override it if they can fill it in directly
+     *
+     * @param location The Location to copy the location into
+     * @return The given Location
+     */
+    default Location getLocation(Location location) {
+        Location currentLocation = this.getLocation();
+        location.setWorld(currentLocation.getWorld());
+        location.setX(currentLocation.getX());
+        location.setY(currentLocation.getY());
+        location.setZ(currentLocation.getZ());
+        return location;
+    }
+
+    /**
+     * Gets the World this TreeBlock is in
+     * Taken from the Location by default, implementations should override it with a cheaper lookup if they have one
+     *
+     * @return The World of this TreeBlock
+     */
+    default World getWorld() {
+        return this.getLocation().getWorld();
+    }
+
+    /**
+     * Gets the X coordinate of the block this TreeBlock is at
+     *
+     * @return The X coordinate of this TreeBlock
+     */
+    default int getX() {
+        return this.getLocation().getBlockX();
+    }
+
+    /**
+     * Gets the Y coordinate of the block this TreeBlock is at
+     *
+     * @return The Y coordinate of this TreeBlock
+     */
+    default int getY() {
+        return this.getLocation().getBlockY();
+    }
+
+    /**
+     * Gets the Z coordinate of the block this TreeBlock is at
+     *
+     * @return The Z coordinate of this TreeBlock
+     */
+    default int getZ() {
+        return this.getLocation().getBlockZ();
+    }
+
     /**
      * Gets what type of TreeBlock this is
      *
@@ -25,4 +80,16 @@ public interface ITreeBlock<BlockType> {
      */
     TreeBlockType getTreeBlockType();
 
+    /**
+     * Gets a key that identifies this TreeBlock among the other TreeBlocks of the same tree
+     * Must stay the same for as long as the TreeBlock is in a TreeBlockSet
+     * Packed from the Location by default
+     *
+     * @return The key of this TreeBlock
+     */
+    default long getKey() {
+        Location location = this.getLocation();
+        return BlockPos.pack(location.getBlockX(), location.getBlockY(), location.getBlockZ());
+    }
+
 }
@@ -0,0 +1,80 @@
+package com.songoda.ultimatetimber.tree;
+
+import com.songoda.ultimatetimber.misc.LongArrayList;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Buckets the logs of a tree into a grid of cubic cells
+ * Any log closer to a block than the cell size is in the block's cell or one of the cells around it
+ */
+public class LogIndex {
+
+    /**
+     * Returned by {@link #findClosest(int, int, int)} if no log is close enough
+     * Can't collide with a real position since it is outside of the world border
+     */
+    public static final long NOT_FOUND = Long.MIN_VALUE;
+
+    private final int cellSize;
+    private final Map<Long, LongArrayList> cells;
+
+    /**
+     * @param cellSize The size of the grid cells, at least the largest distance that will be searched
+     */
+    public LogIndex(int cellSize) {
+        this.cellSize = Math.max(1, cellSize);
+        this.cells = new HashMap<>();
+    }
+
+    /**
+     * Adds a log to this index
+     *
+     * @param position The packed position of the log
+     */
+    public void add(long position) {
+        long cell = this.getCell(BlockPos.unpackX(position), BlockPos.unpackY(position), BlockPos.unpackZ(position));
+        this.cells.computeIfAbsent(cell, key -> new LongArrayList(4)).add(position);
+    }
+
+    /**
+     * Finds the closest log to the given coordinates that is less than the cell size away
+     * Logs further away may also be returned, but never over a closer log
+     *
+     * @param x The X coordinate
+     * @param y The Y coordinate
+     * @param z The Z coordinate
+     * @return The packed position of the closest log, or {@link #NOT_FOUND} if there are no logs nearby
+     */
+    public long findClosest(int x, int y, int z) {
+        int cellX = Math.floorDiv(x, this.cellSize), cellY = Math.floorDiv(y, this.cellSize), cellZ = Math.floorDiv(z, this.cellSize);
+        long closest = NOT_FOUND;
+        int closestDistance = Integer.MAX_VALUE;
+        for (int offsetX = -1; offsetX <= 1; offsetX++) {
+            for (int offsetY = -1; offsetY <= 1; offsetY++) {
+                for (int offsetZ = -1; offsetZ <= 1; offsetZ++) {
+                    LongArrayList logs = this.cells.get(BlockPos.pack(cellX + offsetX, cellY + offsetY, cellZ + offsetZ));
+                    if (logs == null)
+                        continue;
+
+                    for (int i = 0; i < logs.size(); i++) {
+                        long log = logs.get(i);
+                        int dx = BlockPos.unpackX(log) - x, dy = BlockPos.unpackY(log) - y, dz = BlockPos.unpackZ(log) - z;
+                        int distance = dx * dx + dy * dy + dz * dz;
+                        if (distance < closestDistance) {
+                            closest = log;
+                            closestDistance = distance;
+                        }
+                    }
+                }
+            }
+        }
+        return closest;
+    }
+
+    private long getCell(int x, int y, int z) {
+        return BlockPos.pack(Math.floorDiv(x, this.cellSize), Math.floorDiv(y, this.cellSize), Math.floorDiv(z, this.cellSize));
+    }
+
+}
@@ -0,0 +1,136 @@
+package com.songoda.ultimatetimber.tree;
+
+import com.songoda.core.compatibility.CompatibleMaterial;
+import com.songoda.ultimatetimber.misc.LongHashSet;
+import com.songoda.ultimatetimber.misc.LongIntHashMap;
+import org.bukkit.World;
+import org.bukkit.block.BlockFace;
+
+/**
+ * A BlockSource backed by an in-memory grid of blocks, for running detection without a server
+ * Any block that hasn't been set is AIR
+ */
+public class SyntheticBlockSource implements BlockSource {
+
+    private static final CompatibleMaterial[] MATERIALS = CompatibleMaterial.values();
+    private static final BlockFace[] FACES = BlockFace.values();
+
+    private final World world;
+    private final LongIntHashMap materials;
+    private final LongIntHashMap axes;
+    private final LongHashSet placedBlocks;
+
+    public SyntheticBlockSource() {
+        this(null);
+    }
+
+    /**
+     * @param world The World detected trees should be placed in, or null if they won't be turned into a DetectedTree
+     */
+    public SyntheticBlockSource(World world) {
+        this.world = world;
+        this.materials = new LongIntHashMap(1024);
+        this.axes = new LongIntHashMap();
+        this.placedBlocks = new LongHashSet();
+    }
+
+    @Override
+    public World getWorld() {
+        return this.world;
+    }
+
+    @Override
+    public CompatibleMaterial getMaterial(int x, int y, int z) {
+        int material = this.materials.get(BlockPos.pack(x, y, z), -1);
+        return material == -1 ? CompatibleMaterial.AIR : MATERIALS[material];
+    }
+
+    @Override
+    public boolean isPlaced(int x, int y, int z) {
+        return this.placedBlocks.contains(BlockPos.pack(x, y, z));
+    }
+
+    @Override
+    public BlockFace getAxis(int x, int y, int z) {
+        int axis = this.axes.get(BlockPos.pack(x, y, z), -1);
+        return axis == -1 ? null : FACES[axis];
+    }
+
+    /**
+     * Sets the material of the block at the given coordinates
+     *
+     * @param x        The X coordinate
+     * @param y        The Y coordinate
+     * @param z        The Z coordinate
+     * @param material The CompatibleMaterial to set, null or AIR to remove the block
+     * @return This SyntheticBlockSource
+     */
+    public SyntheticBlockSource setMaterial(int x, int y, int z, CompatibleMaterial material) {
+        long position = BlockPos.pack(x, y, z);
+        if (material == null || material == CompatibleMaterial.AIR) {
+            this.materials.remove(position);
+        } else {
+            this.materials.put(position, material.ordinal());
+        }
+        return this;
+    }
+
+    /**
+     * Sets the material of every block in a box, both corners included
+     *
+     * @param minX     The lowest X coordinate
+     * @param minY     The lowest Y coordinate
+     * @param minZ     The lowest Z coordinate
+     * @param maxX     The highest X coordinate
+     * @param maxY     The highest Y coordinate
+     * @param maxZ     The highest Z coordinate
+     * @param material The CompatibleMaterial to set, null or AIR to remove the blocks
+     * @return This SyntheticBlockSource
+     */
+    public SyntheticBlockSource fill(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, CompatibleMaterial material) {
+        for (int x = minX; x <= maxX; x++)
+            for (int y = minY; y <= maxY; y++)
+                for (int z = minZ; z <= maxZ; z++)
+                    this.setMaterial(x, y, z, material);
+        return this;
+    }
+
+    /**
+     * Sets the axis the block at the given coordinates is lying along
+     *
+     * @param x    The X coordinate
+     * @param y    The Y coordinate
+     * @param z    The Z coordinate
+     * @param axis EAST for the X axis, UP for the Y axis, SOUTH for the Z axis, or null if the block has no axis
+     * @return This SyntheticBlockSource
+     */
+    public SyntheticBlockSource setAxis(int x, int y, int z, BlockFace axis) {
+        long position = BlockPos.pack(x, y, z);
+        if (axis == null) {
+            this.axes.remove(position);
+        } else {
+            this.axes.put(position, axis.ordinal());
+        }
+        return this;
+    }
+
+    /**
+     * Sets if the block at the given coordinates was placed by a player
+     *
+     * @param x      The X coordinate
+     * @param y      The Y coordinate
+     * @param z      The Z coordinate
+     * @param placed If the block was placed
+     * @return This SyntheticBlockSource
+     */
+    public SyntheticBlockSource setPlaced(int x, int y, int z, boolean placed) {
+        long position = BlockPos.pack(x, y, z);
+        if (placed) {
+            this.placedBlocks.add(position);
+        } else {
+            this.placedBlocks.remove(position);
+        }
+        return this;
+    }
+
+}
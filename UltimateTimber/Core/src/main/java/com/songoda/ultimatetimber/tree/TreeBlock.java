@@ -1,6 +1,7 @@
 package com.songoda.ultimatetimber.tree;
 
 import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.block.Block;
 
 import java.util.Objects;
@@ -9,10 +10,18 @@ public class TreeBlock implements ITreeBlock<Block> {
 
     private final Block block;
     private final TreeBlockType treeBlockType;
+    private final World world;
+    private final int x, y, z;
+    private final long key;
 
     public TreeBlock(Block block, TreeBlockType treeBlockType) {
         this.block = block;
         this.treeBlockType = treeBlockType;
+        this.world = block.getWorld();
+        this.x = block.getX();
+        this.y = block.getY();
+        this.z = block.getZ();
+        this.key = BlockPos.pack(this.x, this.y, this.z);
     }
 
     @Override
@@ -25,11 +34,50 @@ public class TreeBlock implements ITreeBlock<Block> {
         return this.block.getLocation();
     }
 
+    @Override
+    public Location getLocation(Location location) {
+        location.setWorld(this.world);
+        location.setX(this.x);
+        location.setY(this.y);
+        location.setZ(this.z);
+        return location;
+    }
+
+    @Override
+    public World getWorld() {
+        return this.world;
+    }
+
+    @Override
+    public int getX() {
+        return this.x;
+    }
+
+    @Override
+    public int getY() {
+        return this.y;
+    }
+
+    @Override
+    public int getZ() {
+        return this.z;
+    }
+
     @Override
     public TreeBlockType getTreeBlockType() {
         return this.treeBlockType;
     }
 
+    /**
+     * Gets the packed position of the block
+     *
+     * @return The packed position of the block
+     */
+    @Override
+    public long getKey() {
+        return this.key;
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(this.block, this.treeBlockType);
@@ -1,36 +1,44 @@
 package com.songoda.ultimatetimber.tree;
 
-import org.bukkit.block.Block;
+import com.songoda.ultimatetimber.misc.LongIntHashMap;
 
+import java.util.AbstractCollection;
+import java.util.AbstractList;
+import java.util.AbstractSet;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Set;
-import java.util.stream.Collectors;
 
+/**
+ * The logs and leaves of a tree, each kept in the order they were added
+ * Blocks are looked up by their key, so a TreeBlockSet should only ever hold the blocks of a single tree
+ * Blocks can be added or removed while iterating over any of the views, the views never copy the blocks
+ * getAllTreeBlocks is the exception, it returns a copy like it always has
+ */
 public class TreeBlockSet<BlockType> implements Collection {
 
     private final ITreeBlock<BlockType> initialLogBlock;
-    private List<ITreeBlock<BlockType>> logBlocks;
-    private final List<ITreeBlock<BlockType>> leafBlocks;
+    private final TreeBlockList<BlockType> logBlocks;
+    private final TreeBlockList<BlockType> leafBlocks;
+    private final Set<ITreeBlock<BlockType>> allTreeBlocks;
 
     public TreeBlockSet() {
-        this.initialLogBlock = null;
-        this.logBlocks = new LinkedList<>();
-        this.leafBlocks = new LinkedList<>();
+        this(null);
     }
 
     public TreeBlockSet(ITreeBlock<BlockType> initialLogBlock) {
         this.initialLogBlock = initialLogBlock;
-        this.logBlocks = new LinkedList<>();
-        this.leafBlocks = new LinkedList<>();
+        this.logBlocks = new TreeBlockList<>();
+        this.leafBlocks = new TreeBlockList<>();
+        this.allTreeBlocks = new AllTreeBlocks();
 
         if (initialLogBlock != null)
-            this.logBlocks.add(initialLogBlock);
+            this.logBlocks.addTreeBlock(initialLogBlock);
     }
 
     /**
@@ -45,31 +53,50 @@ public class TreeBlockSet<BlockType> implements Collection {
     /**
      * Gets all logs in this TreeBlockSet
      *
-     * @return A Set of TreeBlocks
+     * @return An unmodifiable view of the logs
      */
     public List<ITreeBlock<BlockType>> getLogBlocks() {
-        return Collections.unmodifiableList(this.logBlocks);
+        return this.logBlocks;
     }
 
     /**
      * Gets all leaves in this TreeBlockSet
      *
-     * @return A Set of TreeBlocks
+     * @return An unmodifiable view of the leaves
      */
     public List<ITreeBlock<BlockType>> getLeafBlocks() {
-        return Collections.unmodifiableList(this.leafBlocks);
+        return this.leafBlocks;
     }
 
     /**
-     * Gets all blocks in this TreeBlockSet
+     * Gets all blocks in this TreeBlockSet, logs first
+     * Iterate over the set itself or the log and leaf views instead where a copy isn't needed
      *
-     * @return A Set of all TreeBlocks
+     * @return A new Set of all TreeBlocks, changes to it don't affect this TreeBlockSet
      */
     public Set<ITreeBlock<BlockType>> getAllTreeBlocks() {
-        Set<ITreeBlock<BlockType>> treeBlocks = new HashSet<>();
-        treeBlocks.addAll(this.logBlocks);
-        treeBlocks.addAll(this.leafBlocks);
-        return treeBlocks;
+        return new LinkedHashSet<>(this.allTreeBlocks);
+    }
+
+    /**
+     * Gets the log or leaf with the given key
+     *
+     * @param key The key of the TreeBlock
+     * @return The TreeBlock with the key, or null if there is none
+     */
+    public ITreeBlock<BlockType> getTreeBlock(long key) {
+        ITreeBlock<BlockType> treeBlock = this.logBlocks.getTreeBlock(key);
+        return treeBlock != null ? treeBlock : this.leafBlocks.getTreeBlock(key);
+    }
+
+    /**
+     * Checks if there is a log or leaf with the given key
+     *
+     * @param key The key of the TreeBlock
+     * @return True if there is a TreeBlock with the key, otherwise false
+     */
+    public boolean containsKey(long key) {
+        return this.logBlocks.getTreeBlock(key) != null || this.leafBlocks.getTreeBlock(key) != null;
     }
 
     @Override
@@ -84,44 +111,35 @@ public class TreeBlockSet<BlockType> implements Collection {
 
     @Override
     public boolean contains(Object o) {
-        return this.logBlocks.contains(o) || this.leafBlocks.contains(o);
+        if (!(o instanceof ITreeBlock)) return false;
+        TreeBlockList<BlockType> treeBlocks = this.getTreeBlockList(((ITreeBlock<?>) o).getTreeBlockType());
+        return treeBlocks != null && treeBlocks.contains(o);
     }
 
     @Override
     public Iterator iterator() {
-        return this.getAllTreeBlocks().iterator();
+        return this.allTreeBlocks.iterator();
     }
 
     @Override
     public Object[] toArray() {
-        return this.getAllTreeBlocks().toArray();
+        return this.allTreeBlocks.toArray();
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public boolean add(Object o) {
         if (!(o instanceof ITreeBlock)) return false;
-        ITreeBlock treeBlock = (ITreeBlock) o;
-        switch (treeBlock.getTreeBlockType()) {
-            case LOG:
-                return this.logBlocks.add(treeBlock);
-            case LEAF:
-                return this.leafBlocks.add(treeBlock);
-        }
-        return false;
+        ITreeBlock<BlockType> treeBlock = (ITreeBlock<BlockType>) o;
+        TreeBlockList<BlockType> treeBlocks = this.getTreeBlockList(treeBlock.getTreeBlockType());
+        return treeBlocks != null && treeBlocks.addTreeBlock(treeBlock);
     }
 
     @Override
     public boolean remove(Object o) {
         if (!(o instanceof ITreeBlock)) return false;
-        ITreeBlock treeBlock = (ITreeBlock) o;
-        switch (treeBlock.getTreeBlockType()) {
-            case LOG:
-                return this.logBlocks.remove(treeBlock);
-            case LEAF:
-                return this.leafBlocks.remove(treeBlock);
-        }
-        return false;
+        TreeBlockList<BlockType> treeBlocks = this.getTreeBlockList(((ITreeBlock<?>) o).getTreeBlockType());
+        return treeBlocks != null && treeBlocks.removeTreeBlock(o);
     }
 
     @Override
@@ -137,49 +155,123 @@ public class TreeBlockSet<BlockType> implements Collection {
 
     @Override
     public void clear() {
-        this.logBlocks.clear();
-        this.leafBlocks.clear();
+        this.logBlocks.removeAllTreeBlocks();
+        this.leafBlocks.removeAllTreeBlocks();
     }
 
     @Override
     public boolean retainAll(Collection c) {
-        boolean retainedAll = true;
-        for (Object o : c) {
-            if (!this.contains(o)) {
-                this.remove(o);
-            } else {
-                retainedAll = false;
-            }
-        }
-        return retainedAll;
+        boolean changed = false;
+        for (ITreeBlock<BlockType> treeBlock : this.allTreeBlocks)
+            if (!c.contains(treeBlock))
+                changed |= this.remove(treeBlock);
+        return changed;
     }
 
     @Override
     public boolean removeAll(Collection c) {
         boolean removedAll = true;
         for (Object o : c) {
-            if (this.contains(o)) {
-                this.remove(o);
-            } else {
+            if (!this.remove(o)) {
                 removedAll = false;
             }
         }
         return removedAll;
     }
 
+    /**
+     * Keeps only the given number of lowest logs, along with the leaves no higher than the highest kept log
+     *
+     * @param max The number of logs to keep
+     */
     public void sortAndLimit(int max) {
-        if (logBlocks.size() < max)
+        if (this.logBlocks.size() < max)
             return;
 
-        logBlocks = logBlocks.stream().sorted(Comparator.comparingInt(b -> b.getLocation().getBlockY()))
-                .limit(max).collect(Collectors.toList());
+        int highest = this.logBlocks.keepLowest(max);
+        this.leafBlocks.removeAbove(highest);
+    }
 
-        int highest = logBlocks.get(logBlocks.size() - 1).getLocation().getBlockY();
+    /**
+     * Gets the lowest Y coordinate any block in this TreeBlockSet was added at
+     *
+     * @return The lowest Y coordinate, or Integer.MAX_VALUE if no blocks were added
+     */
+    public int getLowestY() {
+        return Math.min(this.logBlocks.lowestY, this.leafBlocks.lowestY);
+    }
 
-        if (logBlocks.size() >= max)
-            for (ITreeBlock<BlockType> leafBlock : new LinkedList<>(leafBlocks))
-                if (leafBlock.getLocation().getY() > highest)
-                    leafBlocks.remove(leafBlock);
+    /**
+     * Gets the highest Y coordinate any block in this TreeBlockSet was added at
+     *
+     * @return The highest Y coordinate, or Integer.MIN_VALUE if no blocks were added
+     */
+    public int getHighestY() {
+        return Math.max(this.logBlocks.highestY, this.leafBlocks.highestY);
+    }
+
+    /**
+     * Gets the blocks that were added at a single Y coordinate, logs first
+     *
+     * @param y The Y coordinate of the layer
+     * @return An unmodifiable view of the blocks in the layer
+     */
+    public Collection<ITreeBlock<BlockType>> getLayer(int y) {
+        return new AbstractCollection<ITreeBlock<BlockType>>() {
+            @Override
+            public Iterator<ITreeBlock<BlockType>> iterator() {
+                return new ChainedIterator<>(TreeBlockSet.this.logBlocks.layerIterator(y), TreeBlockSet.this.leafBlocks.layerIterator(y));
+            }
+
+            @Override
+            public int size() {
+                return TreeBlockSet.this.logBlocks.layerSize(y) + TreeBlockSet.this.leafBlocks.layerSize(y);
+            }
+        };
+    }
+
+    /**
+     * Gets the blocks of a given type from the lowest layer to the highest, in the order they were added within a layer
+     *
+     * @param treeBlockType The type of tree block
+     * @return An unmodifiable view of the blocks, lowest first
+     */
+    public Collection<ITreeBlock<BlockType>> getBottomUp(TreeBlockType treeBlockType) {
+        TreeBlockList<BlockType> treeBlocks = this.getTreeBlockList(treeBlockType);
+        if (treeBlocks == null)
+            return Collections.emptyList();
+
+        return new AbstractCollection<ITreeBlock<BlockType>>() {
+            @Override
+            public Iterator<ITreeBlock<BlockType>> iterator() {
+                return new Iterator<ITreeBlock<BlockType>>() {
+                    private int y = treeBlocks.lowestY;
+                    private Iterator<ITreeBlock<BlockType>> layer = Collections.emptyIterator();
+
+                    @Override
+                    public boolean hasNext() {
+                        while (!this.layer.hasNext()) {
+                            if (this.y > treeBlocks.highestY)
+                                return false;
+                            this.layer = treeBlocks.layerIterator(this.y++);
+                        }
+                        return true;
+                    }
+
+                    @Override
+                    public ITreeBlock<BlockType> next() {
+                        if (!this.hasNext())
+                            throw new NoSuchElementException();
+                        return this.layer.next();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return treeBlocks.size();
+            }
+        };
     }
 
     /**
@@ -189,16 +281,13 @@ public class TreeBlockSet<BlockType> implements Collection {
      * @return If any blocks were removed
      */
     public boolean removeAll(TreeBlockType treeBlockType) {
-        if (treeBlockType.equals(TreeBlockType.LOG)) {
-            boolean removedAny = !this.logBlocks.isEmpty();
-            this.logBlocks.clear();
-            return removedAny;
-        } else if (treeBlockType.equals(TreeBlockType.LEAF)) {
-            boolean removedAny = !this.leafBlocks.isEmpty();
-            this.leafBlocks.clear();
-            return removedAny;
-        }
-        return false;
+        TreeBlockList<BlockType> treeBlocks = this.getTreeBlockList(treeBlockType);
+        if (treeBlocks == null)
+            return false;
+
+        boolean removedAny = !treeBlocks.isEmpty();
+        treeBlocks.removeAllTreeBlocks();
+        return removedAny;
     }
 
     @Override
@@ -212,11 +301,380 @@ public class TreeBlockSet<BlockType> implements Collection {
     @Override
     @SuppressWarnings("unchecked")
     public Object[] toArray(Object[] a) {
-        Set<ITreeBlock<BlockType>> treeBlocks = new HashSet<>();
-        for (Object o : a)
-            if (o instanceof ITreeBlock)
-                treeBlocks.add((ITreeBlock<BlockType>)o);
-        return treeBlocks.toArray();
+        return this.allTreeBlocks.toArray(a);
+    }
+
+    private TreeBlockList<BlockType> getTreeBlockList(TreeBlockType treeBlockType) {
+        switch (treeBlockType) {
+            case LOG:
+                return this.logBlocks;
+            case LEAF:
+                return this.leafBlocks;
+        }
+        return null;
+    }
+
+    /**
+     * A view of the logs followed by the leaves
+     */
+    private class AllTreeBlocks extends AbstractSet<ITreeBlock<BlockType>> {
+
+        @Override
+        public Iterator<ITreeBlock<BlockType>> iterator() {
+            return new ChainedIterator<>(TreeBlockSet.this.logBlocks.iterator(), TreeBlockSet.this.leafBlocks.iterator());
+        }
+
+        @Override
+        public int size() {
+            return TreeBlockSet.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return TreeBlockSet.this.contains(o);
+        }
+
+    }
+
+    /**
+     * Iterates over the logs followed by the leaves
+     */
+    private static class ChainedIterator<BlockType> implements Iterator<ITreeBlock<BlockType>> {
+
+        private final Iterator<ITreeBlock<BlockType>> leafIterator;
+        private Iterator<ITreeBlock<BlockType>> iterator;
+
+        private ChainedIterator(Iterator<ITreeBlock<BlockType>> logIterator, Iterator<ITreeBlock<BlockType>> leafIterator) {
+            this.iterator = logIterator;
+            this.leafIterator = leafIterator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (this.iterator.hasNext())
+                return true;
+            if (this.iterator == this.leafIterator)
+                return false;
+            this.iterator = this.leafIterator;
+            return this.iterator.hasNext();
+        }
+
+        @Override
+        public ITreeBlock<BlockType> next() {
+            if (!this.hasNext())
+                throw new NoSuchElementException();
+            return this.iterator.next();
+        }
+
+    }
+
+    /**
+     * The TreeBlocks of a single type in the order they were added, indexed by their key
+     * Every TreeBlock is also chained into the layer of its Y coordinate at the time it was added
+     * Removed TreeBlocks leave a gap behind that is never filled, so adding or removing while iterating is safe
+     */
+    private static class TreeBlockList<BlockType> extends AbstractList<ITreeBlock<BlockType>> {
+
+        private static final int NOT_FOUND = -1;
+
+        private final LongIntHashMap indexes;
+        private ITreeBlock<BlockType>[] treeBlocks;
+        private int[] layerYs, nextInLayer;
+        private int end, size;
+
+        // The last TreeBlock looked up by its position in the list, so looking them up in order skips each gap once
+        private int cursorIndex, cursorPosition;
+
+        // Heads and tails of the layer chains, indexed by the Y coordinate minus the lowest Y the arrays cover
+        private int[] layerHeads, layerTails;
+        private int layerOffset, lowestY, highestY;
+
+        @SuppressWarnings("unchecked")
+        private TreeBlockList() {
+            this.indexes = new LongIntHashMap();
+            this.treeBlocks = new ITreeBlock[16];
+            this.layerYs = new int[16];
+            this.nextInLayer = new int[16];
+            this.layerHeads = new int[0];
+            this.layerTails = new int[0];
+            this.lowestY = Integer.MAX_VALUE;
+            this.highestY = Integer.MIN_VALUE;
+        }
+
+        /**
+         * Adds a TreeBlock if there isn't one with the same key already
+         *
+         * @param treeBlock The TreeBlock to add
+         * @return True if the TreeBlock was added, otherwise false
+         */
+        private boolean addTreeBlock(ITreeBlock<BlockType> treeBlock) {
+            long key = treeBlock.getKey();
+            if (this.indexes.containsKey(key))
+                return false;
+
+            if (this.end == this.treeBlocks.length) {
+                int capacity = this.treeBlocks.length << 1;
+                this.treeBlocks = Arrays.copyOf(this.treeBlocks, capacity);
+                this.layerYs = Arrays.copyOf(this.layerYs, capacity);
+                this.nextInLayer = Arrays.copyOf(this.nextInLayer, capacity);
+            }
+
+            int index = this.end++;
+            this.indexes.put(key, index);
+            this.treeBlocks[index] = treeBlock;
+            this.layerYs[index] = treeBlock.getY();
+            this.chainIntoLayer(index);
+            this.size++;
+            return true;
+        }
+
+        /**
+         * Removes a TreeBlock if it is in this list
+         *
+         * @param o The TreeBlock to remove
+         * @return True if the TreeBlock was removed, otherwise false
+         */
+        private boolean removeTreeBlock(Object o) {
+            long key = ((ITreeBlock<?>) o).getKey();
+            int index = this.indexes.get(key, NOT_FOUND);
+            if (index == NOT_FOUND || !this.treeBlocks[index].equals(o))
+                return false;
+
+            this.indexes.remove(key);
+            this.treeBlocks[index] = null;
+            this.size--;
+            this.cursorIndex = 0;
+            this.cursorPosition = 0;
+            return true;
+        }
+
+        /**
+         * Gets the TreeBlock with the given key
+         *
+         * @param key The key of the TreeBlock
+         * @return The TreeBlock with the key, or null if there is none
+         */
+        private ITreeBlock<BlockType> getTreeBlock(long key) {
+            int index = this.indexes.get(key, NOT_FOUND);
+            return index == NOT_FOUND ? null : this.treeBlocks[index];
+        }
+
+        /**
+         * Keeps only the given number of lowest TreeBlocks, the earliest added ones within a layer
+         *
+         * @param max The number of TreeBlocks to keep
+         * @return The Y coordinate of the highest kept TreeBlock
+         */
+        private int keepLowest(int max) {
+            int kept = 0, highestKeptY = Integer.MIN_VALUE;
+            for (int y = this.lowestY; y <= this.highestY; y++) {
+                for (int index = this.getLayerHead(y); index != NOT_FOUND; index = this.nextInLayer[index]) {
+                    ITreeBlock<BlockType> treeBlock = this.treeBlocks[index];
+                    if (treeBlock == null)
+                        continue;
+
+                    if (kept < max) {
+                        kept++;
+                        highestKeptY = y;
+                    } else {
+                        this.removeTreeBlock(treeBlock);
+                    }
+                }
+            }
+            return highestKeptY;
+        }
+
+        /**
+         * Removes every TreeBlock above the given Y coordinate
+         *
+         * @param y The Y coordinate of the highest layer to keep
+         */
+        private void removeAbove(int y) {
+            for (int layerY = Math.max(y + 1, this.lowestY); layerY <= this.highestY; layerY++)
+                for (int index = this.getLayerHead(layerY); index != NOT_FOUND; index = this.nextInLayer[index])
+                    if (this.treeBlocks[index] != null)
+                        this.removeTreeBlock(this.treeBlocks[index]);
+        }
+
+        /**
+         * Gets an iterator over a single layer in the order the TreeBlocks were added
+         *
+         * @param y The Y coordinate of the layer
+         * @return An iterator over the layer
+         */
+        private Iterator<ITreeBlock<BlockType>> layerIterator(int y) {
+            return new Iterator<ITreeBlock<BlockType>>() {
+                private int index = this.skipGaps(TreeBlockList.this.getLayerHead(y));
+
+                @Override
+                public boolean hasNext() {
+                    this.index = this.skipGaps(this.index);
+                    return this.index != NOT_FOUND;
+                }
+
+                @Override
+                public ITreeBlock<BlockType> next() {
+                    if (!this.hasNext())
+                        throw new NoSuchElementException();
+                    ITreeBlock<BlockType> treeBlock = TreeBlockList.this.treeBlocks[this.index];
+                    this.index = TreeBlockList.this.nextInLayer[this.index];
+                    return treeBlock;
+                }
+
+                private int skipGaps(int index) {
+                    while (index != NOT_FOUND && TreeBlockList.this.treeBlocks[index] == null)
+                        index = TreeBlockList.this.nextInLayer[index];
+                    return index;
+                }
+            };
+        }
+
+        /**
+         * Counts the TreeBlocks in a single layer
+         *
+         * @param y The Y coordinate of the layer
+         * @return The number of TreeBlocks in the layer
+         */
+        private int layerSize(int y) {
+            int size = 0;
+            for (int index = this.getLayerHead(y); index != NOT_FOUND; index = this.nextInLayer[index])
+                if (this.treeBlocks[index] != null)
+                    size++;
+            return size;
+        }
+
+        private int getLayerHead(int y) {
+            int layer = y - this.layerOffset;
+            return layer >= 0 && layer < this.layerHeads.length ? this.layerHeads[layer] : NOT_FOUND;
+        }
+
+        /**
+         * Appends a TreeBlock to the end of the chain of its layer
+         *
+         * @param index The index of the TreeBlock
+         */
+        private void chainIntoLayer(int index) {
+            int y = this.layerYs[index];
+            int layer = y - this.layerOffset;
+            if (layer < 0 || layer >= this.layerHeads.length) {
+                this.growLayers(y);
+                layer = y - this.layerOffset;
+            }
+
+            this.nextInLayer[index] = NOT_FOUND;
+            if (this.layerHeads[layer] == NOT_FOUND) {
+                this.layerHeads[layer] = index;
+            } else {
+                this.nextInLayer[this.layerTails[layer]] = index;
+            }
+            this.layerTails[layer] = index;
+
+            this.lowestY = Math.min(this.lowestY, y);
+            this.highestY = Math.max(this.highestY, y);
+        }
+
+        /**
+         * Grows the layer arrays so they cover the given Y coordinate, with some room to spare around it
+         *
+         * @param y The Y coordinate to cover
+         */
+        private void growLayers(int y) {
+            int lowest = Math.min(y, this.lowestY) - 8;
+            int highest = Math.max(y, this.highestY) + 8;
+            int[] layerHeads = new int[highest - lowest + 1];
+            int[] layerTails = new int[layerHeads.length];
+            Arrays.fill(layerHeads, NOT_FOUND);
+            Arrays.fill(layerTails, NOT_FOUND);
+            if (this.lowestY <= this.highestY) {
+                int from = this.lowestY - this.layerOffset, to = this.lowestY - lowest, length = this.highestY - this.lowestY + 1;
+                System.arraycopy(this.layerHeads, from, layerHeads, to, length);
+                System.arraycopy(this.layerTails, from, layerTails, to, length);
+            }
+            this.layerHeads = layerHeads;
+            this.layerTails = layerTails;
+            this.layerOffset = lowest;
+        }
+
+        @Override
+        public ITreeBlock<BlockType> get(int index) {
+            if (index < 0 || index >= this.size)
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+            if (this.end == this.size)
+                return this.treeBlocks[index];
+
+            if (index < this.cursorIndex) {
+                this.cursorIndex = 0;
+                this.cursorPosition = 0;
+            }
+
+            int position = this.cursorPosition;
+            for (int i = this.cursorIndex; ; position++) {
+                if (this.treeBlocks[position] == null)
+                    continue;
+                if (i == index)
+                    break;
+                i++;
+            }
+
+            this.cursorIndex = index;
+            this.cursorPosition = position;
+            return this.treeBlocks[position];
+        }
+
+        @Override
+        public int size() {
+            return this.size;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof ITreeBlock)) return false;
+            ITreeBlock<BlockType> treeBlock = this.getTreeBlock(((ITreeBlock<?>) o).getKey());
+            return treeBlock != null && treeBlock.equals(o);
+        }
+
+        @Override
+        public Iterator<ITreeBlock<BlockType>> iterator() {
+            return new Iterator<ITreeBlock<BlockType>>() {
+                private int index = this.skipGaps(0);
+
+                @Override
+                public boolean hasNext() {
+                    this.index = this.skipGaps(this.index);
+                    return this.index < TreeBlockList.this.end;
+                }
+
+                @Override
+                public ITreeBlock<BlockType> next() {
+                    if (!this.hasNext())
+                        throw new NoSuchElementException();
+                    return TreeBlockList.this.treeBlocks[this.index++];
+                }
+
+                private int skipGaps(int index) {
+                    while (index < TreeBlockList.this.end && TreeBlockList.this.treeBlocks[index] == null)
+                        index++;
+                    return index;
+                }
+            };
+        }
+
+        /**
+         * Removes every TreeBlock from this list
+         */
+        private void removeAllTreeBlocks() {
+            Arrays.fill(this.treeBlocks, 0, this.end, null);
+            Arrays.fill(this.layerHeads, NOT_FOUND);
+            Arrays.fill(this.layerTails, NOT_FOUND);
+            this.indexes.clear();
+            this.end = 0;
+            this.size = 0;
+            this.cursorIndex = 0;
+            this.cursorPosition = 0;
+            this.lowestY = Integer.MAX_VALUE;
+            this.highestY = Integer.MIN_VALUE;
+        }
+
     }
 
 }
@@ -18,11 +18,21 @@ public class TreeDefinition {
     private final Set<TreeLoot> logLoot, leafLoot, entireTreeLoot;
     private final Set<ItemStack> requiredTools;
     private final boolean requiredAxe;
+    private final boolean megaTrunk;
 
     public TreeDefinition(String key, Set<CompatibleMaterial> logMaterial, Set<CompatibleMaterial> leafMaterial, CompatibleMaterial saplingMaterial,
                           Set<CompatibleMaterial> plantableSoilMaterial, double maxLogDistanceFromTrunk, int maxLeafDistanceFromLog,
                           boolean detectLeavesDiagonally, boolean dropOriginalLog, boolean dropOriginalLeaf, Set<TreeLoot> logLoot,
                           Set<TreeLoot> leafLoot, Set<TreeLoot> entireTreeLoot, Set<ItemStack> requiredTools, boolean requiredAxe) {
+        this(key, logMaterial, leafMaterial, saplingMaterial, plantableSoilMaterial, maxLogDistanceFromTrunk, maxLeafDistanceFromLog,
+                detectLeavesDiagonally, dropOriginalLog, dropOriginalLeaf, logLoot, leafLoot, entireTreeLoot, requiredTools, requiredAxe, false);
+    }
+
+    public TreeDefinition(String key, Set<CompatibleMaterial> logMaterial, Set<CompatibleMaterial> leafMaterial, CompatibleMaterial saplingMaterial,
+                          Set<CompatibleMaterial> plantableSoilMaterial, double maxLogDistanceFromTrunk, int maxLeafDistanceFromLog,
+                          boolean detectLeavesDiagonally, boolean dropOriginalLog, boolean dropOriginalLeaf, Set<TreeLoot> logLoot,
+                          Set<TreeLoot> leafLoot, Set<TreeLoot> entireTreeLoot, Set<ItemStack> requiredTools, boolean requiredAxe,
+                          boolean megaTrunk) {
         this.key = key;
         this.logMaterial = logMaterial;
         this.leafMaterial = leafMaterial;
@@ -38,6 +48,7 @@ public class TreeDefinition {
         this.entireTreeLoot = entireTreeLoot;
         this.requiredTools = requiredTools;
         this.requiredAxe = requiredAxe;
+        this.megaTrunk = megaTrunk;
     }
 
     /**
@@ -112,6 +123,15 @@ public class TreeDefinition {
         return this.detectLeavesDiagonally;
     }
 
+    /**
+     * Gets if this tree can grow a 2x2 trunk, like a dark oak, giant jungle tree or giant spruce
+     *
+     * @return True if a 2x2 trunk of these logs can be detected as a single tree, otherwise false
+     */
+    public boolean canGrowMegaTrunk() {
+        return this.megaTrunk;
+    }
+
     /**
      * Gets if the logs of this tree should drop their original block
      *
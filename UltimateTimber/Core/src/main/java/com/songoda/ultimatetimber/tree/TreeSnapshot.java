@@ -0,0 +1,170 @@
+package com.songoda.ultimatetimber.tree;
+
+import com.songoda.core.compatibility.CompatibleMaterial;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+import java.util.Arrays;
+
+/**
+ * The result of a tree detection stored as packed block positions
+ * Holds no Block instances, so it can be created off of the main thread
+ */
+public class TreeSnapshot {
+
+    private final World world;
+    private final TreeDefinition treeDefinition;
+    private final DetectedTree.Directions direction;
+    private final long initialLogBlock;
+    private final long[] logBlocks, leafBlocks;
+    private final CompatibleMaterial[] logMaterials, leafMaterials;
+
+    /**
+     * @param blockSource     The BlockSource the tree was detected from, the materials of its blocks are read from it right away
+     * @param treeDefinition  The TreeDefinition of the tree
+     * @param direction       The tree arrangement direction
+     * @param initialLogBlock The packed position of the block that initiated the detection
+     * @param logBlocks       The packed positions of the logs, including the initial log block
+     * @param leafBlocks      The packed positions of the leaves
+     */
+    public TreeSnapshot(BlockSource blockSource, TreeDefinition treeDefinition, DetectedTree.Directions direction, long initialLogBlock, long[] logBlocks, long[] leafBlocks) {
+        this(blockSource.getWorld(), treeDefinition, direction, initialLogBlock, logBlocks, leafBlocks,
+                getMaterials(blockSource, logBlocks), getMaterials(blockSource, leafBlocks));
+    }
+
+    private TreeSnapshot(World world, TreeDefinition treeDefinition, DetectedTree.Directions direction, long initialLogBlock,
+                         long[] logBlocks, long[] leafBlocks, CompatibleMaterial[] logMaterials, CompatibleMaterial[] leafMaterials) {
+        this.world = world;
+        this.treeDefinition = treeDefinition;
+        this.direction = direction;
+        this.initialLogBlock = initialLogBlock;
+        this.logBlocks = logBlocks;
+        this.leafBlocks = leafBlocks;
+        this.logMaterials = logMaterials;
+        this.leafMaterials = leafMaterials;
+    }
+
+    /**
+     * Gets the World this tree is in
+     *
+     * @return The World of this tree, or null if it was detected outside of a World
+     */
+    public World getWorld() {
+        return this.world;
+    }
+
+    /**
+     * Gets the TreeDefinition of this tree
+     *
+     * @return The TreeDefinition of this tree
+     */
+    public TreeDefinition getTreeDefinition() {
+        return this.treeDefinition;
+    }
+
+    /**
+     * Gets the tree arrangement direction
+     *
+     * @return A Directions enum
+     */
+    public DetectedTree.Directions getDirection() {
+        return this.direction;
+    }
+
+    /**
+     * Gets the packed position of the block that initiated the detection
+     *
+     * @return The packed position of the initial log block
+     */
+    public long getInitialLogBlock() {
+        return this.initialLogBlock;
+    }
+
+    /**
+     * Gets the packed positions of the logs of this tree, including the initial log block
+     *
+     * @return A copy of the packed log positions
+     */
+    public long[] getLogBlocks() {
+        return this.logBlocks.clone();
+    }
+
+    /**
+     * Gets the packed positions of the leaves of this tree
+     *
+     * @return A copy of the packed leaf positions
+     */
+    public long[] getLeafBlocks() {
+        return this.leafBlocks.clone();
+    }
+
+    /**
+     * Creates a snapshot of the same tree as if it was detected from another one of its logs
+     *
+     * @param initialLogBlock The packed position of the new initial log block, should be one of the logs of this tree
+     * @param minLogY         The lowest Y coordinate of the logs to keep, the initial log block is always kept
+     * @return A new TreeSnapshot
+     */
+    public TreeSnapshot withInitialLogBlock(long initialLogBlock, int minLogY) {
+        long[] logBlocks = new long[this.logBlocks.length];
+        CompatibleMaterial[] logMaterials = new CompatibleMaterial[this.logBlocks.length];
+        int size = 0;
+        for (int i = 0; i < this.logBlocks.length; i++) {
+            long logBlock = this.logBlocks[i];
+            if (logBlock == initialLogBlock || BlockPos.unpackY(logBlock) >= minLogY) {
+                logMaterials[size] = this.logMaterials[i];
+                logBlocks[size++] = logBlock;
+            }
+        }
+
+        return new TreeSnapshot(this.world, this.treeDefinition, this.direction, initialLogBlock, Arrays.copyOf(logBlocks, size),
+                this.leafBlocks, Arrays.copyOf(logMaterials, size), this.leafMaterials);
+    }
+
+    /**
+     * Gets the logs and leaves of this tree with the materials they had when it was detected
+     * Can be read from after the blocks have been changed in the World
+     *
+     * @return A new BlockSource of the blocks of this tree, any other block is AIR
+     */
+    public BlockSource getBlockSource() {
+        SyntheticBlockSource blockSource = new SyntheticBlockSource(this.world);
+        for (int i = 0; i < this.logBlocks.length; i++)
+            blockSource.setMaterial(BlockPos.unpackX(this.logBlocks[i]), BlockPos.unpackY(this.logBlocks[i]), BlockPos.unpackZ(this.logBlocks[i]), this.logMaterials[i]);
+        for (int i = 0; i < this.leafBlocks.length; i++)
+            blockSource.setMaterial(BlockPos.unpackX(this.leafBlocks[i]), BlockPos.unpackY(this.leafBlocks[i]), BlockPos.unpackZ(this.leafBlocks[i]), this.leafMaterials[i]);
+        return blockSource;
+    }
+
+    /**
+     * Creates a DetectedTree from this snapshot
+     * Should only be called from the main server thread, and only if this tree is in a World
+     *
+     * @return A new DetectedTree
+     */
+    public DetectedTree toDetectedTree() {
+        Block initialBlock = this.getBlock(this.initialLogBlock);
+        TreeBlockSet<Block> detectedTreeBlocks = new TreeBlockSet<>(new TreeBlock(initialBlock, TreeBlockType.LOG));
+
+        for (long logBlock : this.logBlocks)
+            if (logBlock != this.initialLogBlock)
+                detectedTreeBlocks.add(new TreeBlock(this.getBlock(logBlock), TreeBlockType.LOG));
+
+        for (long leafBlock : this.leafBlocks)
+            detectedTreeBlocks.add(new TreeBlock(this.getBlock(leafBlock), TreeBlockType.LEAF));
+
+        return new DetectedTree(this.treeDefinition, detectedTreeBlocks, this.direction);
+    }
+
+    private static CompatibleMaterial[] getMaterials(BlockSource blockSource, long[] positions) {
+        CompatibleMaterial[] materials = new CompatibleMaterial[positions.length];
+        for (int i = 0; i < positions.length; i++)
+            materials[i] = blockSource.getMaterial(BlockPos.unpackX(positions[i]), BlockPos.unpackY(positions[i]), BlockPos.unpackZ(positions[i]));
+        return materials;
+    }
+
+    private Block getBlock(long position) {
+        return this.world.getBlockAt(BlockPos.unpackX(position), BlockPos.unpackY(position), BlockPos.unpackZ(position));
+    }
+
+}
@@ -0,0 +1,76 @@
+package com.songoda.ultimatetimber.tree;
+
+import java.util.Arrays;
+
+/**
+ * Stores the trunk of a tree as axis-aligned runs of blocks
+ * Finding the distance to the closest trunk block only has to look at each run instead of each block
+ */
+public class TrunkIndex {
+
+    private int[] runs;
+    private int size;
+
+    public TrunkIndex() {
+        this.runs = new int[6 * 4];
+    }
+
+    /**
+     * Adds an axis-aligned run of trunk blocks between two corners, both inclusive
+     *
+     * @param x1 The X coordinate of the first corner
+     * @param y1 The Y coordinate of the first corner
+     * @param z1 The Z coordinate of the first corner
+     * @param x2 The X coordinate of the second corner
+     * @param y2 The Y coordinate of the second corner
+     * @param z2 The Z coordinate of the second corner
+     */
+    public void addRun(int x1, int y1, int z1, int x2, int y2, int z2) {
+        if (this.size == this.runs.length)
+            this.runs = Arrays.copyOf(this.runs, this.runs.length << 1);
+
+        this.runs[this.size++] = Math.min(x1, x2);
+        this.runs[this.size++] = Math.min(y1, y2);
+        this.runs[this.size++] = Math.min(z1, z2);
+        this.runs[this.size++] = Math.max(x1, x2);
+        this.runs[this.size++] = Math.max(y1, y2);
+        this.runs[this.size++] = Math.max(z1, z2);
+    }
+
+    /**
+     * Gets the squared distance from the given coordinates to the closest trunk block
+     *
+     * @param x The X coordinate
+     * @param y The Y coordinate
+     * @param z The Z coordinate
+     * @return The squared distance to the closest trunk block, Integer.MAX_VALUE if there are no trunk blocks
+     */
+    public int distanceSquared(int x, int y, int z) {
+        int closest = Integer.MAX_VALUE;
+        for (int i = 0; i < this.size; i += 6) {
+            int dx = distanceOutside(x, this.runs[i], this.runs[i + 3]);
+            int dy = distanceOutside(y, this.runs[i + 1], this.runs[i + 4]);
+            int dz = distanceOutside(z, this.runs[i + 2], this.runs[i + 5]);
+            closest = Math.min(closest, dx * dx + dy * dy + dz * dz);
+        }
+        return closest;
+    }
+
+    /**
+     * Checks if this index has any trunk blocks
+     *
+     * @return True if no runs have been added, otherwise false
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    private static int distanceOutside(int value, int min, int max) {
+        if (value < min)
+            return min - value;
+        if (value > max)
+            return value - max;
+        return 0;
+    }
+
+}
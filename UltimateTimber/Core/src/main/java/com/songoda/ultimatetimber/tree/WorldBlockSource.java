@@ -0,0 +1,146 @@
+package com.songoda.ultimatetimber.tree;
+
+import com.songoda.core.compatibility.CompatibleMaterial;
+import com.songoda.core.compatibility.ServerVersion;
+import com.songoda.ultimatetimber.misc.LongIntHashMap;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.World;
+import org.bukkit.block.BlockFace;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.block.data.Orientable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongPredicate;
+
+/**
+ * A BlockSource that reads directly from a live World
+ * Chunks that are read from a lot are snapshotted, so the rest of their blocks can be read without going through the World
+ * Snapshots are only kept until {@link #releaseSnapshots()} is called, as they don't see changes made to the World
+ * Must only be used from the main server thread
+ */
+public class WorldBlockSource implements BlockSource {
+
+    private static final int SNAPSHOT_THRESHOLD = 32;
+
+    private final World world;
+    private final LongPredicate placedBlocks;
+    private final int minHeight, maxHeight;
+    private final boolean useSnapshots;
+    private final LongIntHashMap chunkReads;
+    private final Map<Long, ChunkSnapshot> snapshots;
+    private long lastChunkKey;
+    private ChunkSnapshot lastSnapshot;
+
+    /**
+     * @param world        The World to read from
+     * @param placedBlocks Tests if the block at a packed position was placed by a player
+     */
+    public WorldBlockSource(World world, LongPredicate placedBlocks) {
+        this.world = world;
+        this.placedBlocks = placedBlocks;
+        this.minHeight = ServerVersion.isServerVersionAtLeast(ServerVersion.V1_17) ? world.getMinHeight() : 0;
+        this.maxHeight = world.getMaxHeight();
+        // Legacy materials need the block data, which snapshots can't give through getBlockType
+        this.useSnapshots = ServerVersion.isServerVersionAtLeast(ServerVersion.V1_13);
+        this.chunkReads = new LongIntHashMap();
+        this.snapshots = new HashMap<>();
+    }
+
+    @Override
+    public World getWorld() {
+        return this.world;
+    }
+
+    @Override
+    public CompatibleMaterial getMaterial(int x, int y, int z) {
+        if (!this.useSnapshots)
+            return CompatibleMaterial.getMaterial(this.world.getBlockAt(x, y, z));
+
+        if (y < this.minHeight || y >= this.maxHeight)
+            return CompatibleMaterial.AIR;
+
+        ChunkSnapshot snapshot = this.getSnapshot(x >> 4, z >> 4);
+        if (snapshot == null)
+            return CompatibleMaterial.getMaterial(this.world.getBlockAt(x, y, z));
+
+        return CompatibleMaterial.getMaterial(snapshot.getBlockType(x & 15, y, z & 15));
+    }
+
+    @Override
+    public boolean isPlaced(int x, int y, int z) {
+        return this.placedBlocks.test(BlockPos.pack(x, y, z));
+    }
+
+    @Override
+    public BlockFace getAxis(int x, int y, int z) {
+        // Legacy blocks keep their axis in the data value, which differs per material
+        if (!this.useSnapshots || y < this.minHeight || y >= this.maxHeight)
+            return null;
+
+        ChunkSnapshot snapshot = this.getSnapshot(x >> 4, z >> 4);
+        if (snapshot == null)
+            return getAxis(this.world.getBlockAt(x, y, z).getBlockData());
+
+        return getAxis(snapshot.getBlockData(x & 15, y, z & 15));
+    }
+
+    @Override
+    public void releaseSnapshots() {
+        this.chunkReads.clear();
+        this.snapshots.clear();
+        this.lastSnapshot = null;
+    }
+
+    /**
+     * Gets the axis of a block from its BlockData
+     *
+     * @param blockData The BlockData of the block
+     * @return EAST for the X axis, UP for the Y axis, SOUTH for the Z axis, or null if the block has no axis
+     */
+    static BlockFace getAxis(BlockData blockData) {
+        if (!(blockData instanceof Orientable))
+            return null;
+
+        switch (((Orientable) blockData).getAxis()) {
+            case X:
+                return BlockFace.EAST;
+            case Y:
+                return BlockFace.UP;
+            default:
+                return BlockFace.SOUTH;
+        }
+    }
+
+    /**
+     * Gets the snapshot of a chunk, taking it once enough blocks have been read from the chunk
+     * Taking a snapshot copies the whole chunk, which isn't worth it for detections that only look at a few blocks
+     *
+     * @param chunkX The X coordinate of the chunk
+     * @param chunkZ The Z coordinate of the chunk
+     * @return The ChunkSnapshot, or null if the chunk should still be read through the World
+     */
+    private ChunkSnapshot getSnapshot(int chunkX, int chunkZ) {
+        long chunkKey = ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+        if (this.lastSnapshot != null && this.lastChunkKey == chunkKey)
+            return this.lastSnapshot;
+
+        ChunkSnapshot snapshot = this.snapshots.get(chunkKey);
+        if (snapshot == null) {
+            int reads = this.chunkReads.get(chunkKey, 0) + 1;
+            if (reads < SNAPSHOT_THRESHOLD) {
+                this.chunkReads.put(chunkKey, reads);
+                return null;
+            }
+
+            this.chunkReads.remove(chunkKey);
+            snapshot = this.world.getChunkAt(chunkX, chunkZ).getChunkSnapshot(false, false, false);
+            this.snapshots.put(chunkKey, snapshot);
+        }
+
+        this.lastChunkKey = chunkKey;
+        this.lastSnapshot = snapshot;
+        return snapshot;
+    }
+
+}
@@ -29,6 +29,7 @@ public class UltimateTimber extends SongodaPlugin {
     private TreeDefinitionManager treeDefinitionManager;
     private TreeDetectionManager treeDetectionManager;
     private HorizontalTreeDetectionManager horizontalTreeDetectionManager;
+    private TreeCacheManager treeCacheManager;
     private TreeFallManager treeFallManager;
 
     public static UltimateTimber getInstance() {
@@ -67,6 +68,7 @@ public class UltimateTimber extends SongodaPlugin {
         this.treeDefinitionManager = this.registerManager(TreeDefinitionManager.class);
         this.treeDetectionManager = this.registerManager(TreeDetectionManager.class);
         this.horizontalTreeDetectionManager = this.registerManager(HorizontalTreeDetectionManager.class);
+        this.treeCacheManager = this.registerManager(TreeCacheManager.class);
         this.treeFallManager = this.registerManager(TreeFallManager.class);
 
         this.reloadConfig();
@@ -191,6 +193,15 @@ public class UltimateTimber extends SongodaPlugin {
         return this.horizontalTreeDetectionManager;
     }
 
+    /**
+     * Gets the tree cache manager
+     *
+     * @return The TreeCacheManager instance
+     */
+    public TreeCacheManager getTreeCacheManager() {
+        return this.treeCacheManager;
+    }
+
     /**
      * Gets the tree fall manager
      *
@@ -97,7 +97,7 @@ public abstract class TreeAnimation {
      * @return A FallingTreeBlock that has been converted from a TreeBlock
      */
     protected FallingTreeBlock convertToFallingBlock(TreeBlock treeBlock) {
-        Location location = treeBlock.getLocation().clone().add(0.5, 0, 0.5);
+        Location location = new Location(treeBlock.getWorld(), treeBlock.getX() + 0.5, treeBlock.getY(), treeBlock.getZ() + 0.5);
         Block block = treeBlock.getBlock();
         CompatibleMaterial material = CompatibleMaterial.getMaterial(block);
 
@@ -130,12 +130,9 @@ public abstract class TreeAnimation {
      * @param fallingBlock The FallingBlock to remove
      */
     public void removeFallingBlock(FallingBlock fallingBlock) {
-        for (ITreeBlock<FallingBlock> fallingTreeBlock : this.fallingTreeBlocks.getAllTreeBlocks()) {
-            if (fallingTreeBlock.getBlock().equals(fallingBlock)) {
-                this.fallingTreeBlocks.remove(fallingTreeBlock);
-                return;
-            }
-        }
+        ITreeBlock<FallingBlock> fallingTreeBlock = this.fallingTreeBlocks.getTreeBlock(fallingBlock.getEntityId());
+        if (fallingTreeBlock != null && fallingTreeBlock.getBlock().equals(fallingBlock))
+            this.fallingTreeBlocks.remove(fallingTreeBlock);
     }
 
 }
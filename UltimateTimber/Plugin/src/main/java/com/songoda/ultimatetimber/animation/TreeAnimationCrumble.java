@@ -20,7 +20,6 @@ import org.bukkit.util.Vector;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 
 public class TreeAnimationCrumble extends TreeAnimation {
@@ -37,24 +36,16 @@ public class TreeAnimationCrumble extends TreeAnimation {
         boolean useCustomParticles = ConfigurationManager.Setting.USE_CUSTOM_PARTICLES.getBoolean();
 
         // Order blocks by y-axis, lowest first, but shuffled randomly
-        int currentY = -1;
+        TreeBlockSet<Block> detectedTreeBlocks = this.detectedTree.getDetectedTreeBlocks();
         List<List<ITreeBlock<Block>>> treeBlocks = new ArrayList<>();
-        List<ITreeBlock<Block>> currentPartition = new ArrayList<>();
-        List<ITreeBlock<Block>> orderedDetectedTreeBlocks = new ArrayList<>(this.detectedTree.getDetectedTreeBlocks().getAllTreeBlocks());
-        orderedDetectedTreeBlocks.sort(Comparator.comparingInt(x -> x.getLocation().getBlockY()));
-        for (ITreeBlock<Block> treeBlock : orderedDetectedTreeBlocks) {
-            if (currentY != treeBlock.getLocation().getBlockY()) {
-                Collections.shuffle(currentPartition);
-                treeBlocks.add(new ArrayList<>(currentPartition));
-                currentPartition.clear();
-                currentY = treeBlock.getLocation().getBlockY();
-            }
-            currentPartition.add(treeBlock);
+        for (int y = detectedTreeBlocks.getLowestY(); y <= detectedTreeBlocks.getHighestY(); y++) {
+            List<ITreeBlock<Block>> partition = new ArrayList<>(detectedTreeBlocks.getLayer(y));
+            if (partition.isEmpty())
+                continue;
+            Collections.shuffle(partition);
+            treeBlocks.add(partition);
         }
 
-        Collections.shuffle(currentPartition);
-        treeBlocks.add(new ArrayList<>(currentPartition));
-
         TreeDefinition td = this.detectedTree.getTreeDefinition();
 
         new BukkitRunnable() {
@@ -94,7 +85,7 @@ public class TreeAnimationCrumble extends TreeAnimation {
                     }
                 }
 
-                if (treeBlocks.isEmpty() && TreeAnimationCrumble.this.fallingTreeBlocks.getAllTreeBlocks().isEmpty()) {
+                if (treeBlocks.isEmpty() && TreeAnimationCrumble.this.fallingTreeBlocks.isEmpty()) {
                     whenFinished.run();
                     this.cancel();
                 }
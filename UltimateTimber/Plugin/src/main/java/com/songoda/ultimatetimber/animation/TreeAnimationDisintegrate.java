@@ -19,7 +19,6 @@ import org.bukkit.util.Vector;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 
 public class TreeAnimationDisintegrate extends TreeAnimation {
@@ -36,8 +35,7 @@ public class TreeAnimationDisintegrate extends TreeAnimation {
         boolean useCustomSound = ConfigurationManager.Setting.USE_CUSTOM_SOUNDS.getBoolean();
         boolean useCustomParticles = ConfigurationManager.Setting.USE_CUSTOM_PARTICLES.getBoolean();
 
-        List<ITreeBlock<Block>> orderedLogBlocks = new ArrayList<>(this.detectedTree.getDetectedTreeBlocks().getLogBlocks());
-        orderedLogBlocks.sort(Comparator.comparingInt(x -> x.getLocation().getBlockY()));
+        List<ITreeBlock<Block>> orderedLogBlocks = new ArrayList<>(this.detectedTree.getDetectedTreeBlocks().getBottomUp(TreeBlockType.LOG));
 
         List<ITreeBlock<Block>> leafBlocks = new ArrayList<>(this.detectedTree.getDetectedTreeBlocks().getLeafBlocks());
         Collections.shuffle(leafBlocks);
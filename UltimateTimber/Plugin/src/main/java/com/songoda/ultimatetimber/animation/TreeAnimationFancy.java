@@ -38,6 +38,7 @@ public class TreeAnimationFancy extends TreeAnimation {
 
         Vector velocityVector = initialTreeBlock.getLocation().clone().subtract(this.player.getLocation().clone()).toVector().normalize().setY(0);
 
+        double playerY = this.player.getLocation().getY();
         this.fallingTreeBlocks = new TreeBlockSet<>(initialFallingBlock);
         for (ITreeBlock<Block> treeBlock : this.detectedTree.getDetectedTreeBlocks().getAllTreeBlocks()) {
             FallingTreeBlock fallingTreeBlock = this.convertToFallingBlock((TreeBlock)treeBlock);
@@ -50,7 +51,7 @@ public class TreeAnimationFancy extends TreeAnimation {
             if (useCustomParticles)
             ParticleUtils.playFallingParticles(treeBlock);
 
-            double multiplier = (treeBlock.getLocation().getY() - this.player.getLocation().getY()) * 0.05;
+            double multiplier = (treeBlock.getY() - playerY) * 0.05;
             fallingBlock.setVelocity(velocityVector.clone().multiply(multiplier));
             fallingBlock.setVelocity(fallingBlock.getVelocity().multiply(0.3));
         }
@@ -68,7 +69,7 @@ public class TreeAnimationFancy extends TreeAnimation {
                     }
                 }
 
-                if (TreeAnimationFancy.this.fallingTreeBlocks.getAllTreeBlocks().isEmpty()) {
+                if (TreeAnimationFancy.this.fallingTreeBlocks.isEmpty()) {
                     whenFinished.run();
                     this.cancel();
                     return;
@@ -0,0 +1,734 @@
+package com.songoda.ultimatetimber.detection;
+
+import com.songoda.core.compatibility.CompatibleMaterial;
+import com.songoda.ultimatetimber.manager.ConfigurationManager;
+import com.songoda.ultimatetimber.manager.TreeDefinitionManager;
+import com.songoda.ultimatetimber.misc.LongArrayList;
+import com.songoda.ultimatetimber.misc.LongArrayQueue;
+import com.songoda.ultimatetimber.misc.LongHashSet;
+import com.songoda.ultimatetimber.misc.LongPriorityQueue;
+import com.songoda.ultimatetimber.tree.*;
+
+import java.util.Arrays;
+
+/**
+ * Detects trees with a single traversal shared by every kind of tree
+ * Each TrunkStrategy only finds where the trunk of its kind of tree is, the branches, leaves and checks are the same for all
+ * Reads its settings once when created, so a new one has to be created when the config is reloaded
+ */
+public class DetectionEngine {
+
+    private final int[] VALID_TRUNK_OFFSETS, VALID_BRANCH_OFFSETS, VALID_LEAF_OFFSETS;
+
+    private final TreeDefinitionManager treeDefinitionManager;
+    private final int numLeavesRequiredForTree, numLogsRequiredForTree;
+    private final boolean onlyBreakLogsUpwards, entireTreeBase, destroyLeaves;
+
+    public DetectionEngine(TreeDefinitionManager treeDefinitionManager) {
+        this.treeDefinitionManager = treeDefinitionManager;
+        this.numLeavesRequiredForTree = ConfigurationManager.Setting.LEAVES_REQUIRED_FOR_TREE.getInt();
+        this.numLogsRequiredForTree = ConfigurationManager.Setting.LOGS_REQUIRED_FOR_TREE.getInt();
+        this.onlyBreakLogsUpwards = ConfigurationManager.Setting.ONLY_DETECT_LOGS_UPWARDS.getBoolean();
+        this.entireTreeBase = ConfigurationManager.Setting.BREAK_ENTIRE_TREE_BASE.getBoolean();
+        this.destroyLeaves = ConfigurationManager.Setting.DESTROY_LEAVES.getBoolean();
+
+        // Offsets are stored as flattened x, y, z triples
+        this.VALID_BRANCH_OFFSETS = new int[18 * 3];
+        this.VALID_TRUNK_OFFSETS = new int[27 * 3];
+        this.VALID_LEAF_OFFSETS = new int[6 * 3];
+
+        // 3x2x3 centered around log, excluding -y axis
+        int index = 0;
+        for (int y = 0; y <= 1; y++) {
+            for (int x = -1; x <= 1; x++) {
+                for (int z = -1; z <= 1; z++) {
+                    this.VALID_BRANCH_OFFSETS[index++] = x;
+                    this.VALID_BRANCH_OFFSETS[index++] = y;
+                    this.VALID_BRANCH_OFFSETS[index++] = z;
+                }
+            }
+        }
+
+        // 3x3x3 centered around log
+        index = 0;
+        for (int y = -1; y <= 1; y++) {
+            for (int x = -1; x <= 1; x++) {
+                for (int z = -1; z <= 1; z++) {
+                    this.VALID_TRUNK_OFFSETS[index++] = x;
+                    this.VALID_TRUNK_OFFSETS[index++] = y;
+                    this.VALID_TRUNK_OFFSETS[index++] = z;
+                }
+            }
+        }
+
+        // Adjacent blocks to log
+        index = 0;
+        for (int i = -1; i <= 1; i += 2) {
+            this.VALID_LEAF_OFFSETS[index++] = i;
+            this.VALID_LEAF_OFFSETS[index++] = 0;
+            this.VALID_LEAF_OFFSETS[index++] = 0;
+            this.VALID_LEAF_OFFSETS[index++] = 0;
+            this.VALID_LEAF_OFFSETS[index++] = i;
+            this.VALID_LEAF_OFFSETS[index++] = 0;
+            this.VALID_LEAF_OFFSETS[index++] = 0;
+            this.VALID_LEAF_OFFSETS[index++] = 0;
+            this.VALID_LEAF_OFFSETS[index++] = i;
+        }
+    }
+
+    /**
+     * Creates a detection of a tree given the coordinates of an initial starting block that can be run a bit at a time
+     * Each TrunkStrategy is tried in order on the same blocks until one of them finds a tree
+     * Only the lowest logs up to the limit and the leaves below the highest of them are kept, no more logs are searched
+     * for once there are enough of them to keep and to count as a tree
+     * Doesn't touch the World, so this can be run off of the main thread if the BlockSource allows it
+     *
+     * @param blockSource     The BlockSource to read the blocks from
+     * @param initialX        The X coordinate of the starting block
+     * @param initialY        The Y coordinate of the starting block
+     * @param initialZ        The Z coordinate of the starting block
+     * @param maxLogBlocks    The number of logs that will be kept of the tree, or -1 for no limit
+     * @param trunkStrategies The TrunkStrategies to try, in order
+     * @return A new DetectionJob
+     */
+    public DetectionJob createDetectionJob(BlockSource blockSource, int initialX, int initialY, int initialZ, int maxLogBlocks, TrunkStrategy... trunkStrategies) {
+        return new TreeDetectionJob(blockSource, initialX, initialY, initialZ, maxLogBlocks, trunkStrategies);
+    }
+
+    /**
+     * Checks if a block is the natural base of a tree without detecting the rest of the tree
+     * Only the trunk above the block and the leaves connected to it are looked at, branches are never followed
+     *
+     * @param blockSource The BlockSource to read the blocks from
+     * @param x           The X coordinate of the block
+     * @param y           The Y coordinate of the block
+     * @param z           The Z coordinate of the block
+     * @return The TreeDefinition of the tree the block is the base of, or null if it isn't the base of a tree
+     */
+    public TreeDefinition detectTreeBase(BlockSource blockSource, int x, int y, int z) {
+        // Has to be a natural log standing on soil it could be replanted in
+        TreeDefinitionManager.MaterialIndex materialIndex = this.treeDefinitionManager.getMaterialIndex(blockSource.getMaterial(x, y, z));
+        long treeDefinitions = this.getValidLogMask(materialIndex, -1L, null, 0, blockSource, x, y, z);
+        treeDefinitions &= materialIndex.getSoilMask(blockSource.getMaterial(x, y - 1, z));
+        if (treeDefinitions == 0)
+            return null;
+
+        // Follow the trunk straight up to where the canopy should be
+        LongArrayQueue queue = new LongArrayQueue();
+        LongHashSet visitedPositions = new LongHashSet();
+        queue.add(BlockPos.pack(x, y, z));
+        visitedPositions.add(BlockPos.pack(x, y, z));
+        int topY = y;
+        while (true) {
+            long validTreeDefinitions = this.getValidLogMask(materialIndex, treeDefinitions, null, 0, blockSource, x, topY + 1, z);
+            if (validTreeDefinitions == 0)
+                break;
+            treeDefinitions = validTreeDefinitions;
+            topY++;
+            queue.add(BlockPos.pack(x, topY, z));
+            visitedPositions.add(BlockPos.pack(x, topY, z));
+        }
+
+        if (this.numLeavesRequiredForTree <= 0)
+            return materialIndex.getFirstTreeDefinition(treeDefinitions);
+
+        TrunkIndex trunkIndex = new TrunkIndex();
+        trunkIndex.addRun(x, y, z, x, topY, z);
+        double maxTrunkDistanceSquared = this.getMaxTrunkDistanceSquared(materialIndex, treeDefinitions);
+        int maxLeafDistance = this.getMaxLeafDistance(materialIndex, treeDefinitions);
+        int maxLeafDistanceSquared = maxLeafDistance * maxLeafDistance;
+
+        // Count the leaves connected to the trunk until there are enough, the same way as when detecting the whole tree
+        // but with the distance measured to the trunk as the branches aren't known
+        int leafCount = 0;
+        while (!queue.isEmpty()) {
+            long position = queue.poll();
+            int positionX = BlockPos.unpackX(position), positionY = BlockPos.unpackY(position), positionZ = BlockPos.unpackZ(position);
+            int[] offsets = (treeDefinitions & materialIndex.getDiagonalLeavesMask()) == 0 ? this.VALID_LEAF_OFFSETS : this.VALID_TRUNK_OFFSETS;
+            for (int i = 0; i < offsets.length; i += 3) {
+                int targetX = positionX + offsets[i], targetY = positionY + offsets[i + 1], targetZ = positionZ + offsets[i + 2];
+                long targetPosition = BlockPos.pack(targetX, targetY, targetZ);
+                if (!visitedPositions.add(targetPosition))
+                    continue;
+
+                long validTreeDefinitions = this.getValidLeafMask(materialIndex, treeDefinitions, blockSource, targetX, targetY, targetZ);
+                if (validTreeDefinitions == 0 || trunkIndex.distanceSquared(targetX, targetY, targetZ) >= maxLeafDistanceSquared)
+                    continue;
+
+                if (this.doesLeafBorderForeignLog(materialIndex, treeDefinitions, trunkIndex, maxTrunkDistanceSquared, blockSource, targetX, targetY, targetZ))
+                    continue;
+
+                treeDefinitions = validTreeDefinitions;
+                if (++leafCount >= this.numLeavesRequiredForTree)
+                    return materialIndex.getFirstTreeDefinition(treeDefinitions);
+
+                queue.add(targetPosition);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Gets how far from its trunk a tree starting at the given log material can reach horizontally,
+     * including the blocks that have to be looked at around its outermost leaves
+     *
+     * @param material The CompatibleMaterial of the starting log
+     * @return The maximum horizontal reach in blocks
+     */
+    public int getMaxHorizontalReach(CompatibleMaterial material) {
+        TreeDefinitionManager.MaterialIndex materialIndex = this.treeDefinitionManager.getMaterialIndex(material);
+        int maxReach = 0;
+        for (long mask = materialIndex.getLogMask(material); mask != 0; mask &= mask - 1) {
+            TreeDefinition treeDefinition = materialIndex.getFirstTreeDefinition(mask);
+            double maxLogDistance = treeDefinition.getMaxLogDistanceFromTrunk();
+            if (!this.onlyBreakLogsUpwards)
+                maxLogDistance *= Math.sqrt(1.5);
+            maxReach = Math.max(maxReach, (int) Math.ceil(maxLogDistance) + treeDefinition.getMaxLeafDistanceFromLog() + 1);
+        }
+        return maxReach;
+    }
+
+    /**
+     * @return If logs should only be looked for above the initial block
+     */
+    boolean isOnlyBreakLogsUpwards() {
+        return this.onlyBreakLogsUpwards;
+    }
+
+    /**
+     * Checks if a leaf is bordering a log that isn't part of this tree
+     *
+     * @param materialIndex   The MaterialIndex the bitmask is of
+     * @param treeDefinitions The possible tree definitions as a bitmask
+     * @param logPositions    The packed positions of the detected log blocks
+     * @param blockSource     The BlockSource to read the blocks from
+     * @param x               The X coordinate of the leaf
+     * @param y               The Y coordinate of the leaf
+     * @param z               The Z coordinate of the leaf
+     * @return True if the leaf borders an invalid log, otherwise false
+     */
+    private boolean doesLeafBorderInvalidLog(TreeDefinitionManager.MaterialIndex materialIndex, long treeDefinitions, LongHashSet logPositions, BlockSource blockSource, int x, int y, int z) {
+        for (int i = 0; i < this.VALID_TRUNK_OFFSETS.length; i += 3) {
+            int targetX = x + this.VALID_TRUNK_OFFSETS[i], targetY = y + this.VALID_TRUNK_OFFSETS[i + 1], targetZ = z + this.VALID_TRUNK_OFFSETS[i + 2];
+            if (logPositions.contains(BlockPos.pack(targetX, targetY, targetZ)))
+                continue;
+            if (this.getValidLogMask(materialIndex, treeDefinitions, null, 0, blockSource, targetX, targetY, targetZ) != 0)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a leaf is bordering a log that is too far from the trunk to be one of its branches
+     * Used when only the trunk of the tree is known, so logs close enough to it are taken to be its branches
+     *
+     * @param materialIndex           The MaterialIndex the bitmask is of
+     * @param treeDefinitions         The possible tree definitions as a bitmask
+     * @param trunkIndex              The TrunkIndex of the tree
+     * @param maxTrunkDistanceSquared The squared distance from the trunk a branch has to be within
+     * @param blockSource             The BlockSource to read the blocks from
+     * @param x                       The X coordinate of the leaf
+     * @param y                       The Y coordinate of the leaf
+     * @param z                       The Z coordinate of the leaf
+     * @return True if the leaf borders a log of another tree, otherwise false
+     */
+    private boolean doesLeafBorderForeignLog(TreeDefinitionManager.MaterialIndex materialIndex, long treeDefinitions, TrunkIndex trunkIndex, double maxTrunkDistanceSquared, BlockSource blockSource, int x, int y, int z) {
+        for (int i = 0; i < this.VALID_TRUNK_OFFSETS.length; i += 3) {
+            int targetX = x + this.VALID_TRUNK_OFFSETS[i], targetY = y + this.VALID_TRUNK_OFFSETS[i + 1], targetZ = z + this.VALID_TRUNK_OFFSETS[i + 2];
+            if (this.getValidLogMask(materialIndex, treeDefinitions, null, 0, blockSource, targetX, targetY, targetZ) != 0
+                    && this.getValidLogMask(materialIndex, treeDefinitions, trunkIndex, maxTrunkDistanceSquared, blockSource, targetX, targetY, targetZ) == 0)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gets which of the given TreeDefinitions a block is a valid log of
+     *
+     * @param materialIndex           The MaterialIndex the bitmask is of
+     * @param treeDefinitions         The TreeDefinitions to compare against as a bitmask
+     * @param trunkIndex              The TrunkIndex of the tree for checking the distance, or null to skip the check
+     * @param maxTrunkDistanceSquared The squared distance from the trunk a log has to be within
+     * @param blockSource             The BlockSource to read the block from
+     * @param x                       The X coordinate of the block
+     * @param y                       The Y coordinate of the block
+     * @param z                       The Z coordinate of the block
+     * @return A bitmask of the TreeDefinitions the block is a log of, 0 if the block is not a valid log
+     */
+    long getValidLogMask(TreeDefinitionManager.MaterialIndex materialIndex, long treeDefinitions, TrunkIndex trunkIndex, double maxTrunkDistanceSquared, BlockSource blockSource, int x, int y, int z) {
+        // Check if it matches the tree definition
+        long validTreeDefinitions = treeDefinitions & materialIndex.getLogMask(blockSource.getMaterial(x, y, z));
+        if (validTreeDefinitions == 0)
+            return 0;
+
+        // Check if block is placed
+        if (blockSource.isPlaced(x, y, z))
+            return 0;
+
+        // Check that it is close enough to the trunk
+        if (trunkIndex == null || trunkIndex.isEmpty() || trunkIndex.distanceSquared(x, y, z) < maxTrunkDistanceSquared)
+            return validTreeDefinitions;
+
+        return 0;
+    }
+
+    /**
+     * Gets the squared distance from the trunk a log can be for any of the given TreeDefinitions
+     *
+     * @param materialIndex   The MaterialIndex the bitmask is of
+     * @param treeDefinitions The TreeDefinitions as a bitmask
+     * @return The largest squared distance from the trunk allowed
+     */
+    private double getMaxTrunkDistanceSquared(TreeDefinitionManager.MaterialIndex materialIndex, long treeDefinitions) {
+        double maxDistance = 0;
+        for (long mask = treeDefinitions; mask != 0; mask &= mask - 1) {
+            double maxLogDistanceFromTrunk = materialIndex.getFirstTreeDefinition(mask).getMaxLogDistanceFromTrunk();
+            maxDistance = Math.max(maxDistance, maxLogDistanceFromTrunk * maxLogDistanceFromTrunk);
+        }
+
+        if (!this.onlyBreakLogsUpwards) // Help detect logs more often if the tree isn't broken at the base
+            maxDistance *= 1.5;
+
+        return maxDistance;
+    }
+
+    /**
+     * Gets which of the given TreeDefinitions a block is a valid leaf of, not taking the distance to the logs into account
+     *
+     * @param materialIndex   The MaterialIndex the bitmask is of
+     * @param treeDefinitions The TreeDefinitions to compare against as a bitmask
+     * @param blockSource     The BlockSource to read the block from
+     * @param x               The X coordinate of the block
+     * @param y               The Y coordinate of the block
+     * @param z               The Z coordinate of the block
+     * @return A bitmask of the TreeDefinitions the block is a leaf of, 0 if the block is not a valid leaf
+     */
+    private long getValidLeafMask(TreeDefinitionManager.MaterialIndex materialIndex, long treeDefinitions, BlockSource blockSource, int x, int y, int z) {
+        // Check if it matches the tree definition
+        long validTreeDefinitions = treeDefinitions & materialIndex.getLeafMask(blockSource.getMaterial(x, y, z));
+        if (validTreeDefinitions == 0)
+            return 0;
+
+        // Check if block is placed
+        if (blockSource.isPlaced(x, y, z))
+            return 0;
+
+        return validTreeDefinitions;
+    }
+
+    /**
+     * Gets the distance from a log a leaf can be for any of the given TreeDefinitions
+     *
+     * @param materialIndex   The MaterialIndex the bitmask is of
+     * @param treeDefinitions The TreeDefinitions as a bitmask
+     * @return The largest distance from a log allowed
+     */
+    private int getMaxLeafDistance(TreeDefinitionManager.MaterialIndex materialIndex, long treeDefinitions) {
+        int maxDistanceFromLog = 0;
+        for (long mask = treeDefinitions; mask != 0; mask &= mask - 1)
+            maxDistanceFromLog = Math.max(maxDistanceFromLog, materialIndex.getFirstTreeDefinition(mask).getMaxLeafDistanceFromLog());
+        return maxDistanceFromLog;
+    }
+
+    /**
+     * Gets the squared distance between a packed block position and the given coordinates
+     *
+     * @param position The packed block position
+     * @param x        The X coordinate
+     * @param y        The Y coordinate
+     * @param z        The Z coordinate
+     * @return The squared distance between the two blocks
+     */
+    private static int distanceSquared(long position, int x, int y, int z) {
+        int dx = BlockPos.unpackX(position) - x, dy = BlockPos.unpackY(position) - y, dz = BlockPos.unpackZ(position) - z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * A tree detection that keeps its progress between calls to {@link #process(int)}
+     */
+    private class TreeDetectionJob implements DetectionJob {
+
+        private final DetectionState state;
+        private final TrunkStrategy[] trunkStrategies;
+        private final LongHashSet rejectedLogPositions;
+        private int trunkStrategyIndex;
+        private TrunkStrategy trunkStrategy;
+        private TrunkDiscovery trunkDiscovery;
+        private Stage stage;
+        private TreeSnapshot result;
+        private boolean onGround;
+
+        // State of the branch and leaf searches
+        private LogIndex logIndex;
+        private LongPriorityQueue branchQueue;
+        private LongArrayQueue queue, closestLogs;
+        private double maxTrunkDistanceSquared;
+        private int maxLogBlocks, maxLeafDistanceSquared, leafCutoffY, leafCount, groundCheckIndex;
+        private boolean branchesCut;
+
+        private TreeDetectionJob(BlockSource blockSource, int initialX, int initialY, int initialZ, int maxLogBlocks, TrunkStrategy[] trunkStrategies) {
+            // The branch, leaf and border checks look at the same blocks many times over, and every strategy looks at the same area
+            blockSource = blockSource instanceof CachingBlockSource ? blockSource : new CachingBlockSource(blockSource);
+            CompatibleMaterial initialMaterial = blockSource.getMaterial(initialX, initialY, initialZ);
+            TreeDefinitionManager.MaterialIndex materialIndex = DetectionEngine.this.treeDefinitionManager.getMaterialIndex(initialMaterial);
+            long treeDefinitions = materialIndex.getLogMask(initialMaterial);
+            this.state = new DetectionState(DetectionEngine.this, blockSource, initialX, initialY, initialZ, maxLogBlocks, materialIndex, treeDefinitions);
+            this.trunkStrategies = trunkStrategies;
+            this.rejectedLogPositions = new LongHashSet();
+            this.trunkStrategyIndex = -1;
+
+            if (treeDefinitions == 0) {
+                this.stage = Stage.DONE;
+            } else {
+                this.nextTrunkStrategy();
+            }
+        }
+
+        @Override
+        public int process(int budget) {
+            // Chunks snapshotted during an earlier tick may have changed since
+            this.state.getBlockSource().releaseSnapshots();
+
+            while (budget > 0 && this.stage != Stage.DONE) {
+                budget--;
+                switch (this.stage) {
+                    case TRUNK:
+                        if (!this.trunkDiscovery.step())
+                            this.startBranches();
+                        break;
+                    case BRANCHES:
+                        this.stepBranches();
+                        break;
+                    case LEAVES:
+                        this.stepLeaves();
+                        break;
+                    case GROUND:
+                        this.stepGround();
+                        break;
+                }
+            }
+            return budget;
+        }
+
+        @Override
+        public boolean isDone() {
+            return this.stage == Stage.DONE;
+        }
+
+        @Override
+        public TreeSnapshot getResult() {
+            return this.result;
+        }
+
+        @Override
+        public long[] getRejectedLogBlocks() {
+            // Standing on the ground only depends on the height the tree was broken at, so the logs may still be part of a tree
+            if (this.result != null || this.onGround)
+                return new long[0];
+
+            LongArrayList rejectedLogBlocks = new LongArrayList(this.rejectedLogPositions.size());
+            this.rejectedLogPositions.forEach(rejectedLogBlocks::add);
+            return rejectedLogBlocks.toArray();
+        }
+
+        /**
+         * Starts over from the initial block with the next TrunkStrategy, or stops if none are left
+         */
+        private void nextTrunkStrategy() {
+            // Every log that turned out not to be part of a tree is remembered, breaking any of them later on can skip detection
+            DetectionState state = this.state;
+            for (int i = 0; i < state.trunkBlocks.size(); i++)
+                this.rejectedLogPositions.add(state.trunkBlocks.get(i));
+            state.logPositions.forEach(this.rejectedLogPositions::add);
+
+            this.logIndex = null;
+            this.branchQueue = null;
+            this.queue = null;
+            this.closestLogs = null;
+
+            while (++this.trunkStrategyIndex < this.trunkStrategies.length) {
+                state.reset();
+                this.trunkStrategy = this.trunkStrategies[this.trunkStrategyIndex];
+                this.trunkDiscovery = this.trunkStrategy.discoverTrunk(state);
+                if (this.trunkDiscovery != null) {
+                    this.stage = Stage.TRUNK;
+                    return;
+                }
+            }
+
+            this.stage = Stage.DONE;
+        }
+
+        private void startBranches() {
+            DetectionState state = this.state;
+            this.trunkDiscovery = null;
+            this.maxTrunkDistanceSquared = DetectionEngine.this.getMaxTrunkDistanceSquared(state.materialIndex, state.treeDefinitions);
+
+            // Only enough logs to count as a tree and to keep are needed, the lowest ones are always found first
+            this.maxLogBlocks = Math.max(state.maxLogBlocks, DetectionEngine.this.numLogsRequiredForTree);
+            this.branchesCut = false;
+
+            state.logBlocks.add(state.initialPosition);
+            state.logPositions.add(state.initialPosition);
+
+            // The definitions can only ever be narrowed down, so a rejected block will never become valid later on
+            // Trunk blocks are already known to be logs, so the branch search never has to look at them again
+            for (int i = 0; i < state.trunkBlocks.size(); i++)
+                state.visitedPositions.add(state.trunkBlocks.get(i));
+
+            // Lowest blocks are always searched around first, branches can only grow out of the sides of the trunk
+            this.branchQueue = new LongPriorityQueue(BlockPos::unpackY, state.trunkBlocks.size() * 2);
+            for (int i = 0; i < state.trunkBlocks.size(); i++)
+                this.branchQueue.add(state.trunkBlocks.get(i));
+
+            this.stage = Stage.BRANCHES;
+        }
+
+        /**
+         * Searches for branches around the next queued log
+         */
+        private void stepBranches() {
+            DetectionState state = this.state;
+
+            // Any logs found past the limit would be higher up than the ones already found, so they wouldn't be kept
+            // or needed to count as a tree
+            if (this.branchQueue.isEmpty() || state.logBlocks.size() >= this.maxLogBlocks) {
+                this.branchesCut = !this.branchQueue.isEmpty();
+                this.branchQueue = null;
+                if (this.trunkStrategy.hasLeaves()) {
+                    this.startLeaves();
+                } else if (state.logBlocks.size() < DetectionEngine.this.numLogsRequiredForTree) {
+                    this.nextTrunkStrategy();
+                } else {
+                    this.finish();
+                }
+                return;
+            }
+
+            boolean onlyBreakLogsUpwards = DetectionEngine.this.onlyBreakLogsUpwards;
+            int[] offsets = onlyBreakLogsUpwards ? DetectionEngine.this.VALID_BRANCH_OFFSETS : DetectionEngine.this.VALID_TRUNK_OFFSETS;
+            long position = this.branchQueue.poll();
+
+            // Trunk blocks are kept in the order they are searched around, so the lowest ones are kept first
+            if (state.logPositions.add(position))
+                state.logBlocks.add(position);
+
+            int x = BlockPos.unpackX(position), y = BlockPos.unpackY(position), z = BlockPos.unpackZ(position);
+            for (int i = 0; i < offsets.length; i += 3) {
+                int targetX = x + offsets[i], targetY = y + offsets[i + 1], targetZ = z + offsets[i + 2];
+                long targetPosition = BlockPos.pack(targetX, targetY, targetZ);
+                if (!state.visitedPositions.add(targetPosition))
+                    continue;
+
+                long validTreeDefinitions = DetectionEngine.this.getValidLogMask(state.materialIndex, state.treeDefinitions, state.trunkIndex, this.maxTrunkDistanceSquared, state.blockSource, targetX, targetY, targetZ);
+                if (validTreeDefinitions == 0)
+                    continue;
+
+                state.logBlocks.add(targetPosition);
+                state.logPositions.add(targetPosition);
+                if (validTreeDefinitions != state.treeDefinitions) {
+                    state.treeDefinitions = validTreeDefinitions;
+                    this.maxTrunkDistanceSquared = DetectionEngine.this.getMaxTrunkDistanceSquared(state.materialIndex, state.treeDefinitions);
+                }
+                if (!onlyBreakLogsUpwards || targetY > state.initialY)
+                    this.branchQueue.add(targetPosition);
+            }
+        }
+
+        private void startLeaves() {
+            DetectionState state = this.state;
+
+            // If leaves aren't destroyed, none of them are kept and they only have to be counted
+            this.leafCutoffY = DetectionEngine.this.destroyLeaves ? this.getLeafCutoffY() : Integer.MIN_VALUE;
+            this.leafCount = 0;
+
+            int maxLeafDistance = DetectionEngine.this.getMaxLeafDistance(state.materialIndex, state.treeDefinitions);
+            this.maxLeafDistanceSquared = maxLeafDistance * maxLeafDistance;
+
+            // The allowed distance can only shrink, so the cells stay large enough
+            this.logIndex = new LogIndex(maxLeafDistance);
+            state.visitedPositions.clear();
+            this.queue = new LongArrayQueue();
+            this.closestLogs = new LongArrayQueue();
+            for (int i = 0; i < state.logBlocks.size(); i++) {
+                long logBlock = state.logBlocks.get(i);
+                this.logIndex.add(logBlock);
+                this.queue.add(logBlock);
+                this.closestLogs.add(logBlock);
+            }
+
+            this.stage = Stage.LEAVES;
+        }
+
+        /**
+         * Searches for leaves around the next queued log or leaf
+         * Every queued block carries a log close to it, which is nearly always close enough to its neighbours as well,
+         * so only leaves near the edge of the allowed distance have to look up the closest log
+         */
+        private void stepLeaves() {
+            DetectionState state = this.state;
+            int numLeavesRequiredForTree = DetectionEngine.this.numLeavesRequiredForTree;
+            if (this.queue.isEmpty() || (this.leafCutoffY == Integer.MIN_VALUE && this.leafCount >= numLeavesRequiredForTree)) {
+                this.finishLeaves();
+                return;
+            }
+
+            long position = this.queue.poll();
+            long closestLog = this.closestLogs.poll();
+            int x = BlockPos.unpackX(position), y = BlockPos.unpackY(position), z = BlockPos.unpackZ(position);
+            int[] offsets = (state.treeDefinitions & state.materialIndex.getDiagonalLeavesMask()) == 0
+                    ? DetectionEngine.this.VALID_LEAF_OFFSETS : DetectionEngine.this.VALID_TRUNK_OFFSETS;
+            for (int i = 0; i < offsets.length; i += 3) {
+                int targetX = x + offsets[i], targetY = y + offsets[i + 1], targetZ = z + offsets[i + 2];
+                long targetPosition = BlockPos.pack(targetX, targetY, targetZ);
+                // Whether a leaf is accepted doesn't depend on the path it was reached from, only on the logs and the definitions left,
+                // which can only narrow, so a leaf rejected once never has to be looked at again from another log
+                if (!state.visitedPositions.add(targetPosition))
+                    continue;
+
+                long validTreeDefinitions = DetectionEngine.this.getValidLeafMask(state.materialIndex, state.treeDefinitions, state.blockSource, targetX, targetY, targetZ);
+                if (validTreeDefinitions == 0)
+                    continue;
+
+                // Check that it is close enough to a log
+                long targetClosestLog = closestLog;
+                if (distanceSquared(targetClosestLog, targetX, targetY, targetZ) >= this.maxLeafDistanceSquared) {
+                    targetClosestLog = this.logIndex.findClosest(targetX, targetY, targetZ);
+                    if (targetClosestLog == LogIndex.NOT_FOUND || distanceSquared(targetClosestLog, targetX, targetY, targetZ) >= this.maxLeafDistanceSquared)
+                        continue;
+                }
+
+                // If the search for branches stopped early, logs that weren't found yet may still be branches of this tree
+                if (this.branchesCut
+                        ? DetectionEngine.this.doesLeafBorderForeignLog(state.materialIndex, state.treeDefinitions, state.trunkIndex, this.maxTrunkDistanceSquared, state.blockSource, targetX, targetY, targetZ)
+                        : DetectionEngine.this.doesLeafBorderInvalidLog(state.materialIndex, state.treeDefinitions, state.logPositions, state.blockSource, targetX, targetY, targetZ))
+                    continue;
+
+                // Leaves above the highest kept log won't be kept, but are still followed as they may connect leaves that are
+                if (targetY <= this.leafCutoffY)
+                    state.leafBlocks.add(targetPosition);
+                this.leafCount++;
+                if (validTreeDefinitions != state.treeDefinitions) {
+                    state.treeDefinitions = validTreeDefinitions;
+                    int maxLeafDistance = DetectionEngine.this.getMaxLeafDistance(state.materialIndex, state.treeDefinitions);
+                    this.maxLeafDistanceSquared = maxLeafDistance * maxLeafDistance;
+                }
+                this.queue.add(targetPosition);
+                this.closestLogs.add(targetClosestLog);
+            }
+        }
+
+        private void finishLeaves() {
+            this.logIndex = null;
+            this.queue = null;
+            this.closestLogs = null;
+
+            // Trees need at least a certain number of leaves
+            if (this.leafCount < DetectionEngine.this.numLeavesRequiredForTree) {
+                this.nextTrunkStrategy();
+                return;
+            }
+
+            // Check that the tree isn't on the ground if enabled
+            if (DetectionEngine.this.entireTreeBase) {
+                this.groundCheckIndex = 0;
+                this.stage = Stage.GROUND;
+            } else {
+                this.finish();
+            }
+        }
+
+        /**
+         * Checks if the next log at the height of the initial block is standing on the ground
+         */
+        private void stepGround() {
+            DetectionState state = this.state;
+            if (this.groundCheckIndex >= state.logBlocks.size()) {
+                this.finish();
+                return;
+            }
+
+            long logBlock = state.logBlocks.get(this.groundCheckIndex++);
+            if (logBlock == state.initialPosition || BlockPos.unpackY(logBlock) != state.initialY)
+                return;
+
+            int x = BlockPos.unpackX(logBlock), z = BlockPos.unpackZ(logBlock);
+            long actualTreeDefinitionMask = Long.lowestOneBit(state.treeDefinitions);
+            boolean blockBelowIsLog = DetectionEngine.this.getValidLogMask(state.materialIndex, state.treeDefinitions, null, 0, state.blockSource, x, state.initialY - 1, z) != 0;
+            boolean blockBelowIsSoil = (state.materialIndex.getSoilMask(state.blockSource.getMaterial(x, state.initialY - 1, z)) & actualTreeDefinitionMask) != 0;
+
+            if (blockBelowIsLog || blockBelowIsSoil) {
+                this.onGround = true;
+                this.nextTrunkStrategy();
+            }
+        }
+
+        /**
+         * Gets the height of the highest log that will be kept once the tree is limited to the max number of logs
+         *
+         * @return The Y coordinate of the highest kept log
+         */
+        private int getLeafCutoffY() {
+            DetectionState state = this.state;
+            if (state.logBlocks.size() < state.maxLogBlocks)
+                return Integer.MAX_VALUE;
+
+            int[] logHeights = new int[state.logBlocks.size()];
+            for (int i = 0; i < logHeights.length; i++)
+                logHeights[i] = BlockPos.unpackY(state.logBlocks.get(i));
+            Arrays.sort(logHeights);
+            return logHeights[state.maxLogBlocks - 1];
+        }
+
+        /**
+         * Gets the lowest logs up to the max number of logs, in the order they were found
+         *
+         * @return The packed positions of the kept logs
+         */
+        private long[] getKeptLogBlocks() {
+            DetectionState state = this.state;
+            long[] logBlocks = state.logBlocks.toArray();
+            if (logBlocks.length <= state.maxLogBlocks)
+                return logBlocks;
+
+            // Everything below the cutoff is kept, logs at the cutoff are kept until there are enough
+            int cutoffY = this.getLeafCutoffY();
+            int belowCutoff = 0;
+            for (long logBlock : logBlocks)
+                if (BlockPos.unpackY(logBlock) < cutoffY)
+                    belowCutoff++;
+
+            long[] keptLogBlocks = new long[state.maxLogBlocks];
+            int atCutoff = state.maxLogBlocks - belowCutoff;
+            int index = 0;
+            for (long logBlock : logBlocks) {
+                int y = BlockPos.unpackY(logBlock);
+                if (y < cutoffY || (y == cutoffY && atCutoff-- > 0))
+                    keptLogBlocks[index++] = logBlock;
+            }
+            return keptLogBlocks;
+        }
+
+        private void finish() {
+            DetectionState state = this.state;
+
+            // Use the first remaining tree definition in the order of the config, so the same tree always gets the same one
+            TreeDefinition actualTreeDefinition = state.materialIndex.getFirstTreeDefinition(state.treeDefinitions);
+            this.result = new TreeSnapshot(state.blockSource, actualTreeDefinition, this.trunkStrategy.getDirection(),
+                    state.initialPosition, this.getKeptLogBlocks(), state.leafBlocks.toArray());
+            this.stage = Stage.DONE;
+        }
+
+    }
+
+    private enum Stage {
+        TRUNK,
+        BRANCHES,
+        LEAVES,
+        GROUND,
+        DONE
+    }
+
+}
@@ -0,0 +1,151 @@
+package com.songoda.ultimatetimber.detection;
+
+import com.songoda.ultimatetimber.manager.TreeDefinitionManager;
+import com.songoda.ultimatetimber.misc.LongArrayList;
+import com.songoda.ultimatetimber.misc.LongHashSet;
+import com.songoda.ultimatetimber.tree.BlockPos;
+import com.songoda.ultimatetimber.tree.BlockSource;
+import com.songoda.ultimatetimber.tree.TrunkIndex;
+
+/**
+ * The scratch state of a single detection, shared by every TrunkStrategy it tries
+ */
+public class DetectionState {
+
+    private final DetectionEngine detectionEngine;
+    final BlockSource blockSource;
+    final TreeDefinitionManager.MaterialIndex materialIndex;
+    final int initialX, initialY, initialZ, maxLogBlocks;
+    final long initialPosition, initialTreeDefinitions;
+    final LongArrayList trunkBlocks, logBlocks, leafBlocks;
+    final LongHashSet logPositions, visitedPositions;
+    TrunkIndex trunkIndex;
+    long treeDefinitions;
+
+    DetectionState(DetectionEngine detectionEngine, BlockSource blockSource, int initialX, int initialY, int initialZ, int maxLogBlocks,
+                   TreeDefinitionManager.MaterialIndex materialIndex, long initialTreeDefinitions) {
+        this.detectionEngine = detectionEngine;
+        this.blockSource = blockSource;
+        this.materialIndex = materialIndex;
+        this.initialX = initialX;
+        this.initialY = initialY;
+        this.initialZ = initialZ;
+        this.maxLogBlocks = maxLogBlocks > 0 ? maxLogBlocks : Integer.MAX_VALUE;
+        this.initialPosition = BlockPos.pack(initialX, initialY, initialZ);
+        this.initialTreeDefinitions = initialTreeDefinitions;
+        this.trunkBlocks = new LongArrayList();
+        this.logBlocks = new LongArrayList();
+        this.leafBlocks = new LongArrayList();
+        this.logPositions = new LongHashSet();
+        this.visitedPositions = new LongHashSet();
+    }
+
+    /**
+     * Clears everything found so far, so the next TrunkStrategy can start over from the initial block
+     */
+    void reset() {
+        this.trunkBlocks.clear();
+        this.logBlocks.clear();
+        this.leafBlocks.clear();
+        this.logPositions.clear();
+        this.visitedPositions.clear();
+        this.trunkIndex = new TrunkIndex();
+        this.treeDefinitions = this.initialTreeDefinitions;
+        this.trunkBlocks.add(this.initialPosition);
+    }
+
+    /**
+     * @return The BlockSource the detection reads from
+     */
+    public BlockSource getBlockSource() {
+        return this.blockSource;
+    }
+
+    /**
+     * @return The X coordinate of the initial block
+     */
+    public int getInitialX() {
+        return this.initialX;
+    }
+
+    /**
+     * @return The Y coordinate of the initial block
+     */
+    public int getInitialY() {
+        return this.initialY;
+    }
+
+    /**
+     * @return The Z coordinate of the initial block
+     */
+    public int getInitialZ() {
+        return this.initialZ;
+    }
+
+    /**
+     * @return If logs should only be looked for above the initial block
+     */
+    public boolean isOnlyBreakLogsUpwards() {
+        return this.detectionEngine.isOnlyBreakLogsUpwards();
+    }
+
+    /**
+     * @return The TreeDefinitions the tree can still be as a bitmask
+     */
+    public long getTreeDefinitions() {
+        return this.treeDefinitions;
+    }
+
+    /**
+     * @return The TreeDefinitions that can grow a 2x2 trunk as a bitmask
+     */
+    public long getMegaTrunkTreeDefinitions() {
+        return this.materialIndex.getMegaTrunkMask();
+    }
+
+    /**
+     * @return The number of trunk blocks found so far, including the initial block
+     */
+    public int getTrunkSize() {
+        return this.trunkBlocks.size();
+    }
+
+    /**
+     * Gets which of the given TreeDefinitions a block is a valid log of
+     *
+     * @param treeDefinitions The TreeDefinitions to compare against as a bitmask
+     * @param x               The X coordinate of the block
+     * @param y               The Y coordinate of the block
+     * @param z               The Z coordinate of the block
+     * @return A bitmask of the TreeDefinitions the block is a log of, 0 if the block is not a valid log
+     */
+    public long getValidLogMask(long treeDefinitions, int x, int y, int z) {
+        return this.detectionEngine.getValidLogMask(this.materialIndex, treeDefinitions, null, 0, this.blockSource, x, y, z);
+    }
+
+    /**
+     * Adds a block to the trunk, narrowing down the TreeDefinitions the tree can be
+     *
+     * @param position        The packed position of the block
+     * @param treeDefinitions The TreeDefinitions the trunk is valid for with the block as a bitmask
+     */
+    public void addTrunkBlock(long position, long treeDefinitions) {
+        this.trunkBlocks.add(position);
+        this.treeDefinitions = treeDefinitions;
+    }
+
+    /**
+     * Adds a straight run of trunk blocks that the distance of branches is measured to
+     *
+     * @param x1 The X coordinate of one end of the run
+     * @param y1 The Y coordinate of one end of the run
+     * @param z1 The Z coordinate of one end of the run
+     * @param x2 The X coordinate of the other end of the run
+     * @param y2 The Y coordinate of the other end of the run
+     * @param z2 The Z coordinate of the other end of the run
+     */
+    public void addTrunkRun(int x1, int y1, int z1, int x2, int y2, int z2) {
+        this.trunkIndex.addRun(x1, y1, z1, x2, y2, z2);
+    }
+
+}
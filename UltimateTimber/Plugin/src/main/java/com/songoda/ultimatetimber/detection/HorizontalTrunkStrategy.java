@@ -0,0 +1,119 @@
+package com.songoda.ultimatetimber.detection;
+
+import com.songoda.ultimatetimber.tree.DetectedTree;
+import org.bukkit.block.BlockFace;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Finds the straight trunk of a tree that is lying on its side
+ * Logs that know which way they're lying are only followed along that axis
+ */
+class HorizontalTrunkStrategy implements TrunkStrategy {
+
+    @Override
+    public DetectedTree.Directions getDirection() {
+        return DetectedTree.Directions.HORIZONTAL;
+    }
+
+    @Override
+    public boolean hasLeaves() {
+        return false;
+    }
+
+    @Override
+    public TrunkDiscovery discoverTrunk(DetectionState detectionState) {
+        return new HorizontalTrunkDiscovery(detectionState);
+    }
+
+    private static class HorizontalTrunkDiscovery implements TrunkDiscovery {
+
+        private final DetectionState detectionState;
+        private final TrunkScanner trunkScanner;
+        private final Deque<BlockFace> directions;
+        private final BlockFace axis;
+        private boolean directionsPlanned;
+
+        private HorizontalTrunkDiscovery(DetectionState detectionState) {
+            this.detectionState = detectionState;
+            this.trunkScanner = new TrunkScanner(detectionState::getValidLogMask);
+            this.directions = new ArrayDeque<>();
+            this.axis = detectionState.getBlockSource().getAxis(detectionState.getInitialX(), detectionState.getInitialY(), detectionState.getInitialZ());
+
+            if (this.axis == BlockFace.UP) {
+                // An upright log has no trunk to follow sideways, only the logs around it
+                this.directionsPlanned = true;
+            } else if (this.axis == null) {
+                this.directions.add(BlockFace.SOUTH);
+                this.directions.add(BlockFace.WEST);
+            } else {
+                this.directions.add(this.axis == BlockFace.SOUTH ? BlockFace.SOUTH : BlockFace.WEST);
+            }
+
+            if (!this.directions.isEmpty())
+                this.startTrunkRun(this.directions.poll());
+        }
+
+        @Override
+        public boolean step() {
+            DetectionState detectionState = this.detectionState;
+            int initialX = detectionState.getInitialX(), initialY = detectionState.getInitialY(), initialZ = detectionState.getInitialZ();
+
+            if (this.axis == BlockFace.UP) {
+                detectionState.addTrunkRun(initialX, initialY, initialZ, initialX, initialY, initialZ);
+                return false;
+            }
+
+            if (this.trunkScanner.step()) {
+                detectionState.addTrunkBlock(this.trunkScanner.getPosition(), this.trunkScanner.getTreeDefinitions());
+                return true;
+            }
+
+            detectionState.addTrunkRun(initialX, initialY, initialZ, this.trunkScanner.getX(), this.trunkScanner.getY(), this.trunkScanner.getZ());
+
+            if (this.directions.isEmpty() && !this.directionsPlanned)
+                this.planDirections();
+
+            if (this.directions.isEmpty())
+                return false;
+
+            this.startTrunkRun(this.directions.poll());
+            return true;
+        }
+
+        /**
+         * Picks which other directions are left to follow once the first ones have been followed
+         */
+        private void planDirections() {
+            this.directionsPlanned = true;
+            boolean onlyBreakLogsUpwards = this.detectionState.isOnlyBreakLogsUpwards();
+
+            // The other end of the axis is only needed if the logs can be broken both ways or none were found yet
+            if (this.axis != null) {
+                if (this.detectionState.getTrunkSize() < 2 || !onlyBreakLogsUpwards)
+                    this.directions.add(this.axis == BlockFace.SOUTH ? BlockFace.NORTH : BlockFace.EAST);
+                return;
+            }
+
+            boolean opposite = false;
+            if (this.detectionState.getTrunkSize() < 2) {
+                opposite = true;
+                this.directions.add(BlockFace.NORTH);
+                this.directions.add(BlockFace.EAST);
+            }
+
+            if (!onlyBreakLogsUpwards) {
+                this.directions.add(opposite ? BlockFace.SOUTH : BlockFace.NORTH);
+                this.directions.add(opposite ? BlockFace.WEST : BlockFace.EAST);
+            }
+        }
+
+        private void startTrunkRun(BlockFace direction) {
+            this.trunkScanner.start(this.detectionState.getInitialX(), this.detectionState.getInitialY(), this.detectionState.getInitialZ(),
+                    direction, this.detectionState.getTreeDefinitions());
+        }
+
+    }
+
+}
@@ -0,0 +1,144 @@
+package com.songoda.ultimatetimber.detection;
+
+import com.songoda.ultimatetimber.tree.BlockPos;
+import com.songoda.ultimatetimber.tree.DetectedTree;
+import org.bukkit.block.BlockFace;
+
+/**
+ * Finds the 2x2 trunk of a giant upright tree, like a dark oak, giant jungle tree or giant spruce
+ * The footprint is recognised once at the initial block, then all four columns are followed a layer at a time
+ * Only trees that can grow a 2x2 trunk are looked for, so four trees of other kinds next to each other are still felled one by one
+ */
+class MegaTrunkStrategy implements TrunkStrategy {
+
+    // Giant trees don't grow anywhere near this tall, taller columns are built and aren't followed any further
+    private static final int MAX_TRUNK_HEIGHT = 64;
+
+    @Override
+    public DetectedTree.Directions getDirection() {
+        return DetectedTree.Directions.VERTICAL;
+    }
+
+    @Override
+    public boolean hasLeaves() {
+        return true;
+    }
+
+    @Override
+    public TrunkDiscovery discoverTrunk(DetectionState detectionState) {
+        int initialX = detectionState.getInitialX(), initialY = detectionState.getInitialY(), initialZ = detectionState.getInitialZ();
+
+        // Logs lying on their side can't be part of an upright trunk
+        BlockFace axis = detectionState.getBlockSource().getAxis(initialX, initialY, initialZ);
+        if (axis != null && axis != BlockFace.UP)
+            return null;
+
+        long megaTrunkTreeDefinitions = detectionState.getTreeDefinitions() & detectionState.getMegaTrunkTreeDefinitions();
+        if (megaTrunkTreeDefinitions == 0)
+            return null;
+
+        // The initial block can be any of the four corners of the footprint
+        for (int minX = initialX - 1; minX <= initialX; minX++) {
+            for (int minZ = initialZ - 1; minZ <= initialZ; minZ++) {
+                long treeDefinitions = megaTrunkTreeDefinitions;
+                for (int column = 0; column < 4 && treeDefinitions != 0; column++) {
+                    int x = minX + (column & 1), z = minZ + (column >> 1);
+                    if (x != initialX || z != initialZ)
+                        treeDefinitions = detectionState.getValidLogMask(treeDefinitions, x, initialY, z);
+                }
+
+                if (treeDefinitions != 0)
+                    return new MegaTrunkDiscovery(detectionState, minX, minZ, treeDefinitions);
+            }
+        }
+
+        return null;
+    }
+
+    private static class MegaTrunkDiscovery implements TrunkDiscovery {
+
+        private static final int ALL_COLUMNS = 0b1111;
+
+        private final DetectionState detectionState;
+        private final int minX, minZ, initialColumn;
+        private boolean down;
+        private int columns, y, bottomY, topY;
+
+        private MegaTrunkDiscovery(DetectionState detectionState, int minX, int minZ, long treeDefinitions) {
+            this.detectionState = detectionState;
+            this.minX = minX;
+            this.minZ = minZ;
+            this.down = !detectionState.isOnlyBreakLogsUpwards();
+            this.columns = ALL_COLUMNS;
+            this.y = this.bottomY = this.topY = detectionState.getInitialY();
+
+            // The initial block is already part of the trunk, the other three were checked when recognising the footprint
+            int initialX = detectionState.getInitialX(), initialZ = detectionState.getInitialZ();
+            this.initialColumn = (initialX - minX) | ((initialZ - minZ) << 1);
+            for (int column = 0; column < 4; column++) {
+                int x = minX + (column & 1), z = minZ + (column >> 1);
+                if (x != initialX || z != initialZ)
+                    detectionState.addTrunkBlock(BlockPos.pack(x, this.y, z), treeDefinitions);
+            }
+        }
+
+        @Override
+        public boolean step() {
+            DetectionState detectionState = this.detectionState;
+
+            // The whole trunk is followed even past the max logs, the canopy has to be found from its top
+            if (this.columns != 0) {
+                this.y += this.down ? -1 : 1;
+                this.columns = Math.abs(this.y - detectionState.getInitialY()) > MAX_TRUNK_HEIGHT ? 0 : this.scanLayer(this.y, this.columns);
+                if ((this.columns & (1 << this.initialColumn)) != 0) {
+                    if (this.down) {
+                        this.bottomY = this.y;
+                    } else {
+                        this.topY = this.y;
+                    }
+                }
+                if (this.columns != 0)
+                    return true;
+            }
+
+            if (this.down) {
+                this.down = false;
+                this.columns = ALL_COLUMNS;
+                this.y = detectionState.getInitialY();
+                return true;
+            }
+
+            // Branches are only measured from the column of the initial block, the other three are logs like any other
+            int initialX = this.minX + (this.initialColumn & 1), initialZ = this.minZ + (this.initialColumn >> 1);
+            detectionState.addTrunkRun(initialX, this.bottomY, initialZ, initialX, this.topY, initialZ);
+            return false;
+        }
+
+        /**
+         * Adds the logs of a single layer of the trunk
+         * A column stops once it runs out of logs, the others keep going without it
+         *
+         * @param y       The Y coordinate of the layer
+         * @param columns The columns still being followed as a bitmask
+         * @return The columns that had a log in this layer as a bitmask
+         */
+        private int scanLayer(int y, int columns) {
+            DetectionState detectionState = this.detectionState;
+            for (int column = 0; column < 4; column++) {
+                if ((columns & (1 << column)) == 0)
+                    continue;
+
+                int x = this.minX + (column & 1), z = this.minZ + (column >> 1);
+                long validTreeDefinitions = detectionState.getValidLogMask(detectionState.getTreeDefinitions(), x, y, z);
+                if (validTreeDefinitions == 0) {
+                    columns &= ~(1 << column);
+                } else {
+                    detectionState.addTrunkBlock(BlockPos.pack(x, y, z), validTreeDefinitions);
+                }
+            }
+            return columns;
+        }
+
+    }
+
+}
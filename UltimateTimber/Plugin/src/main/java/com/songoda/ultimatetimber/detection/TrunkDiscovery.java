@@ -0,0 +1,16 @@
+package com.songoda.ultimatetimber.detection;
+
+/**
+ * The search for the trunk of a single tree, run a block at a time
+ */
+public interface TrunkDiscovery {
+
+    /**
+     * Looks at the next block that could be part of the trunk
+     * Found trunk blocks and the runs they make up are added to the DetectionState the search was started with
+     *
+     * @return True if there is more of the trunk to look at, false once the trunk is complete
+     */
+    boolean step();
+
+}
@@ -0,0 +1,110 @@
+package com.songoda.ultimatetimber.detection;
+
+import com.songoda.ultimatetimber.tree.BlockPos;
+import org.bukkit.block.BlockFace;
+
+/**
+ * Follows a straight line of logs away from a starting block one block at a time, in any direction
+ * Used by the TrunkStrategies to find straight trunks
+ */
+class TrunkScanner {
+
+    private final LogMaskFunction logMaskFunction;
+    private int x, y, z, modX, modY, modZ;
+    private long treeDefinitions;
+
+    /**
+     * @param logMaskFunction Gets which TreeDefinitions a block is a valid log of
+     */
+    TrunkScanner(LogMaskFunction logMaskFunction) {
+        this.logMaskFunction = logMaskFunction;
+    }
+
+    /**
+     * Starts following a new line of logs
+     *
+     * @param x               The X coordinate of the block to start from
+     * @param y               The Y coordinate of the block to start from
+     * @param z               The Z coordinate of the block to start from
+     * @param direction       The direction to follow the logs in
+     * @param treeDefinitions The possible TreeDefinitions of the logs as a bitmask
+     */
+    void start(int x, int y, int z, BlockFace direction, long treeDefinitions) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.modX = direction.getModX();
+        this.modY = direction.getModY();
+        this.modZ = direction.getModZ();
+        this.treeDefinitions = treeDefinitions;
+    }
+
+    /**
+     * Moves onto the next block in the direction being followed if it is a valid log
+     *
+     * @return True if the next block was a valid log and is now the end of the line, otherwise false
+     */
+    boolean step() {
+        long validTreeDefinitions = this.logMaskFunction.getValidLogMask(this.treeDefinitions, this.x + this.modX, this.y + this.modY, this.z + this.modZ);
+        if (validTreeDefinitions == 0)
+            return false;
+
+        this.treeDefinitions = validTreeDefinitions;
+        this.x += this.modX;
+        this.y += this.modY;
+        this.z += this.modZ;
+        return true;
+    }
+
+    /**
+     * @return The X coordinate of the last log of the line
+     */
+    int getX() {
+        return this.x;
+    }
+
+    /**
+     * @return The Y coordinate of the last log of the line
+     */
+    int getY() {
+        return this.y;
+    }
+
+    /**
+     * @return The Z coordinate of the last log of the line
+     */
+    int getZ() {
+        return this.z;
+    }
+
+    /**
+     * @return The packed position of the last log of the line
+     */
+    long getPosition() {
+        return BlockPos.pack(this.x, this.y, this.z);
+    }
+
+    /**
+     * @return The TreeDefinitions all logs of the line so far are valid for as a bitmask
+     */
+    long getTreeDefinitions() {
+        return this.treeDefinitions;
+    }
+
+    @FunctionalInterface
+    interface LogMaskFunction {
+
+        /**
+         * Gets which of the given TreeDefinitions a block is a valid log of
+         *
+         * @param treeDefinitions The TreeDefinitions to compare against as a bitmask
+         * @param x               The X coordinate of the block
+         * @param y               The Y coordinate of the block
+         * @param z               The Z coordinate of the block
+         * @return A bitmask of the TreeDefinitions the block is a log of, 0 if the block is not a valid log
+         */
+        long getValidLogMask(long treeDefinitions, int x, int y, int z);
+
+    }
+
+}
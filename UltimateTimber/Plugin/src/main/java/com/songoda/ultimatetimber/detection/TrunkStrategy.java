@@ -0,0 +1,38 @@
+package com.songoda.ultimatetimber.detection;
+
+import com.songoda.ultimatetimber.tree.DetectedTree;
+
+/**
+ * Finds the trunk of one kind of tree, the rest of the tree is found by the DetectionEngine the same way for every kind
+ */
+public interface TrunkStrategy {
+
+    TrunkStrategy VERTICAL = new VerticalTrunkStrategy();
+    TrunkStrategy HORIZONTAL = new HorizontalTrunkStrategy();
+    TrunkStrategy MEGA = new MegaTrunkStrategy();
+
+    /**
+     * Gets the direction trees found with this strategy are in
+     *
+     * @return The direction of the trees
+     */
+    DetectedTree.Directions getDirection();
+
+    /**
+     * Checks if trees found with this strategy have leaves
+     * Trees with leaves need enough leaves to count as a tree, trees without leaves need enough logs instead
+     *
+     * @return True if the trees have leaves, otherwise false
+     */
+    boolean hasLeaves();
+
+    /**
+     * Starts finding the trunk of a tree from the initial block of a detection
+     * The initial block is always the first block of the trunk
+     *
+     * @param detectionState The DetectionState of the detection
+     * @return A TrunkDiscovery to find the rest of the trunk with, or null if no trunk of this kind can start at the initial block
+     */
+    TrunkDiscovery discoverTrunk(DetectionState detectionState);
+
+}
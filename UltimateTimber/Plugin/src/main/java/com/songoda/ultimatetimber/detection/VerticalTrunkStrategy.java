@@ -0,0 +1,73 @@
+package com.songoda.ultimatetimber.detection;
+
+import com.songoda.ultimatetimber.tree.DetectedTree;
+import org.bukkit.block.BlockFace;
+
+/**
+ * Finds the single column trunk of an upright tree
+ * The trunk is followed down first, then up to its top
+ */
+class VerticalTrunkStrategy implements TrunkStrategy {
+
+    @Override
+    public DetectedTree.Directions getDirection() {
+        return DetectedTree.Directions.VERTICAL;
+    }
+
+    @Override
+    public boolean hasLeaves() {
+        return true;
+    }
+
+    @Override
+    public TrunkDiscovery discoverTrunk(DetectionState detectionState) {
+        return new VerticalTrunkDiscovery(detectionState);
+    }
+
+    private static class VerticalTrunkDiscovery implements TrunkDiscovery {
+
+        private final DetectionState detectionState;
+        private final TrunkScanner trunkScanner;
+        private boolean down;
+        private int trunkBottomY;
+
+        private VerticalTrunkDiscovery(DetectionState detectionState) {
+            this.detectionState = detectionState;
+            this.trunkScanner = new TrunkScanner(detectionState::getValidLogMask);
+            this.down = !detectionState.isOnlyBreakLogsUpwards();
+            this.trunkBottomY = detectionState.getInitialY();
+            this.trunkScanner.start(detectionState.getInitialX(), detectionState.getInitialY(), detectionState.getInitialZ(),
+                    this.down ? BlockFace.DOWN : BlockFace.UP, detectionState.getTreeDefinitions());
+        }
+
+        @Override
+        public boolean step() {
+            DetectionState detectionState = this.detectionState;
+            if (this.down) {
+                if (this.trunkScanner.step()) {
+                    detectionState.addTrunkBlock(this.trunkScanner.getPosition(), this.trunkScanner.getTreeDefinitions());
+                    return true;
+                }
+
+                this.down = false;
+                this.trunkBottomY = this.trunkScanner.getY();
+                this.trunkScanner.start(detectionState.getInitialX(), detectionState.getInitialY(), detectionState.getInitialZ(),
+                        BlockFace.UP, detectionState.getTreeDefinitions());
+                return true;
+            }
+
+            // The whole trunk is followed even past the max logs, the canopy has to be found from its top
+            if (this.trunkScanner.step()) {
+                detectionState.addTrunkBlock(this.trunkScanner.getPosition(), this.trunkScanner.getTreeDefinitions());
+                return true;
+            }
+
+            // The trunk is a single column, so any distance to it can be measured in one go
+            detectionState.addTrunkRun(detectionState.getInitialX(), this.trunkBottomY, detectionState.getInitialZ(),
+                    detectionState.getInitialX(), this.trunkScanner.getY(), detectionState.getInitialZ());
+            return false;
+        }
+
+    }
+
+}
@@ -1,6 +1,7 @@
 package com.songoda.ultimatetimber.events;
 
 import com.songoda.ultimatetimber.tree.DetectedTree;
+import com.songoda.ultimatetimber.tree.DetectedTreeSnapshot;
 import org.bukkit.entity.Player;
 import org.bukkit.event.player.PlayerEvent;
 
@@ -9,19 +10,34 @@ import org.bukkit.event.player.PlayerEvent;
  */
 public abstract class TreeEvent extends PlayerEvent {
 
-	protected final DetectedTree detectedTree;
+	protected final DetectedTreeSnapshot treeSnapshot;
+	private DetectedTree detectedTree;
 
-    public TreeEvent(Player player, DetectedTree detectedTree) {
+    public TreeEvent(Player player, DetectedTreeSnapshot treeSnapshot) {
         super(player);
-        this.detectedTree = detectedTree;
+        this.treeSnapshot = treeSnapshot;
     }
 
     /**
      * Get the tree blocks
+     *
+     * @return An immutable snapshot of the blocks that are part of the tree
+     */
+    public DetectedTreeSnapshot getTreeSnapshot() {
+        return this.treeSnapshot;
+    }
+
+    /**
+     * Get the tree blocks as a DetectedTree, which is created from the snapshot the first time this is called
+     * Changes to it have no effect on the tree
      * 
      * @return The blocks that are part of the tree
+     * @deprecated Use {@link #getTreeSnapshot()}, which doesn't have to look up every block
      */
+    @Deprecated
     public DetectedTree getDetectedTree() {
+        if (this.detectedTree == null)
+            this.detectedTree = this.treeSnapshot.toDetectedTree();
         return this.detectedTree;
     }
     
@@ -1,6 +1,7 @@
 package com.songoda.ultimatetimber.events;
 
 import com.songoda.ultimatetimber.tree.DetectedTree;
+import com.songoda.ultimatetimber.tree.DetectedTreeSnapshot;
 import org.bukkit.entity.Player;
 import org.bukkit.event.Cancellable;
 import org.bukkit.event.HandlerList;
@@ -12,8 +13,16 @@ public class TreeFallEvent extends TreeEvent implements Cancellable {
 	
 	private boolean cancelled = false;
 	
+    public TreeFallEvent(Player player, DetectedTreeSnapshot treeSnapshot) {
+        super(player, treeSnapshot);
+    }
+
+    /**
+     * @deprecated Use {@link #TreeFallEvent(Player, DetectedTreeSnapshot)}, the DetectedTree is copied into a snapshot
+     */
+    @Deprecated
     public TreeFallEvent(Player player, DetectedTree detectedTree) {
-        super(player, detectedTree);
+        this(player, new DetectedTreeSnapshot(detectedTree));
     }
 
     private static final HandlerList handlers = new HandlerList();
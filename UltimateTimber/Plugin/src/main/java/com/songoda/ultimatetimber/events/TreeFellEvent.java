@@ -1,6 +1,7 @@
 package com.songoda.ultimatetimber.events;
 
 import com.songoda.ultimatetimber.tree.DetectedTree;
+import com.songoda.ultimatetimber.tree.DetectedTreeSnapshot;
 import org.bukkit.entity.Player;
 import org.bukkit.event.HandlerList;
 
@@ -9,8 +10,16 @@ import org.bukkit.event.HandlerList;
  */
 public class TreeFellEvent extends TreeEvent {
 
+    public TreeFellEvent(Player player, DetectedTreeSnapshot treeSnapshot) {
+        super(player, treeSnapshot);
+    }
+
+    /**
+     * @deprecated Use {@link #TreeFellEvent(Player, DetectedTreeSnapshot)}, the DetectedTree is copied into a snapshot
+     */
+    @Deprecated
     public TreeFellEvent(Player player, DetectedTree detectedTree) {
-        super(player, detectedTree);
+        this(player, new DetectedTreeSnapshot(detectedTree));
     }
 
     private static final HandlerList handlers = new HandlerList();
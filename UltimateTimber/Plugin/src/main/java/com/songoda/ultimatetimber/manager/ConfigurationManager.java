@@ -49,6 +49,11 @@ public class ConfigurationManager extends Manager {
         TREE_ANIMATION_TYPE(SettingType.STRING),
         SCATTER_TREE_BLOCKS_ON_GROUND(SettingType.BOOLEAN),
         DETECT_HORIZONTAL_WOODS(SettingType.BOOLEAN),
+        DETECT_MEGA_TRUNKS(SettingType.BOOLEAN),
+        ASYNC_TREE_DETECTION(SettingType.BOOLEAN),
+        DETECTION_CACHE_SIZE(SettingType.INT),
+        DETECTION_BLOCKS_PER_TICK(SettingType.INT),
+        SPECULATIVE_TREE_DETECTION(SettingType.BOOLEAN),
         FRAGILE_BLOCKS(SettingType.STRING_LIST);
 
         private final SettingType settingType;
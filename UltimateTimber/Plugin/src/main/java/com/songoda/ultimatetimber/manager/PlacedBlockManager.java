@@ -2,10 +2,13 @@ package com.songoda.ultimatetimber.manager;
 
 import com.songoda.ultimatetimber.UltimateTimber;
 import com.songoda.ultimatetimber.events.TreeFellEvent;
-import com.songoda.ultimatetimber.tree.ITreeBlock;
+import com.songoda.ultimatetimber.misc.LongHashSet;
+import com.songoda.ultimatetimber.tree.BlockPos;
+import com.songoda.ultimatetimber.tree.BlockPosSet;
+import com.songoda.ultimatetimber.tree.DetectedTreeSnapshot;
 import org.bukkit.Bukkit;
-import org.bukkit.Location;
 import org.bukkit.Material;
+import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockState;
 import org.bukkit.event.EventHandler;
@@ -16,14 +19,11 @@ import org.bukkit.event.block.BlockPlaceEvent;
 import org.bukkit.event.block.LeavesDecayEvent;
 import org.bukkit.event.world.StructureGrowEvent;
 
-import java.util.Collections;
-import java.util.LinkedHashMap;
-import java.util.Map;
-import java.util.Set;
+import java.util.UUID;
 
 public class PlacedBlockManager extends Manager implements Listener {
 
-    private Set<Location> placedBlocks;
+    private BlockPosSet placedBlocks;
     private boolean ignorePlacedBlocks;
     private int maxPlacedBlockMemorySize;
 
@@ -38,12 +38,7 @@ public class PlacedBlockManager extends Manager implements Listener {
         this.maxPlacedBlockMemorySize = ConfigurationManager.Setting.IGNORE_PLACED_BLOCKS_MEMORY_SIZE.getInt();
 
         // Ensures the oldest entry is removed if it exceeds the limit
-        this.placedBlocks = Collections.newSetFromMap(new LinkedHashMap<Location, Boolean>() {
-            @Override
-            protected boolean removeEldestEntry(Map.Entry<Location, Boolean> eldest) {
-                return this.size() > PlacedBlockManager.this.maxPlacedBlockMemorySize;
-            }
-        });
+        this.placedBlocks = new BlockPosSet(Math.max(0, this.maxPlacedBlockMemorySize));
     }
 
     @Override
@@ -93,21 +88,22 @@ public class PlacedBlockManager extends Manager implements Listener {
         if (!this.ignorePlacedBlocks)
             return;
 
-        for (ITreeBlock<Block> treeBlock : event.getDetectedTree().getDetectedTreeBlocks().getAllTreeBlocks())
-            this.internalProtect(treeBlock.getBlock(), false);
+        DetectedTreeSnapshot treeSnapshot = event.getTreeSnapshot();
+        UUID worldId = treeSnapshot.getWorld().getUID();
+        for (int i = 0; i < treeSnapshot.size() && !this.placedBlocks.isEmpty(); i++)
+            this.placedBlocks.remove(worldId, treeSnapshot.getPosition(i));
     }
 
     /**
      * Handles when a block is placed/broken
      */
     private void internalProtect(Block block, boolean isPlaced) {
+        UUID worldId = block.getWorld().getUID();
+        long position = BlockPos.pack(block.getX(), block.getY(), block.getZ());
         if (isPlaced) {
-            if (this.isBlockPlaced(block))
-                return;
-
-            this.placedBlocks.add(block.getLocation());
+            this.placedBlocks.add(worldId, position);
         } else {
-            this.placedBlocks.remove(block.getLocation());
+            this.placedBlocks.remove(worldId, position);
         }
     }
 
@@ -118,7 +114,48 @@ public class PlacedBlockManager extends Manager implements Listener {
      * @return True if the block is placed, otherwise false
      */
     public boolean isBlockPlaced(Block block) {
-        return this.placedBlocks.contains(block.getLocation());
+        return this.isBlockPlaced(block.getWorld(), block.getX(), block.getY(), block.getZ());
+    }
+
+    /**
+     * Gets if a block is placed
+     *
+     * @param world The World of the block
+     * @param x     The X coordinate of the block
+     * @param y     The Y coordinate of the block
+     * @param z     The Z coordinate of the block
+     * @return True if the block is placed, otherwise false
+     */
+    public boolean isBlockPlaced(World world, int x, int y, int z) {
+        return this.placedBlocks.contains(world.getUID(), BlockPos.pack(x, y, z));
+    }
+
+    /**
+     * Gets the packed positions of all placed blocks within an area
+     *
+     * @param world The World of the area
+     * @param minX  The lowest X coordinate of the area
+     * @param minZ  The lowest Z coordinate of the area
+     * @param maxX  The highest X coordinate of the area
+     * @param maxZ  The highest Z coordinate of the area
+     * @return A LongHashSet of packed block positions
+     */
+    public LongHashSet getPlacedBlocks(World world, int minX, int minZ, int maxX, int maxZ) {
+        LongHashSet placedBlocks = new LongHashSet();
+        if (this.placedBlocks.isEmpty())
+            return placedBlocks;
+
+        UUID worldId = world.getUID();
+        for (int chunkX = minX >> 4; chunkX <= maxX >> 4; chunkX++) {
+            for (int chunkZ = minZ >> 4; chunkZ <= maxZ >> 4; chunkZ++) {
+                this.placedBlocks.forEachInChunk(worldId, chunkX, chunkZ, position -> {
+                    int x = BlockPos.unpackX(position), z = BlockPos.unpackZ(position);
+                    if (x >= minX && x <= maxX && z >= minZ && z <= maxZ)
+                        placedBlocks.add(position);
+                });
+            }
+        }
+        return placedBlocks;
     }
 
 }
@@ -2,28 +2,27 @@ package com.songoda.ultimatetimber.manager;
 
 import com.songoda.core.compatibility.CompatibleMaterial;
 import com.songoda.ultimatetimber.UltimateTimber;
+import com.songoda.ultimatetimber.tree.BlockPos;
+import com.songoda.ultimatetimber.tree.BlockPosSet;
 import com.songoda.ultimatetimber.tree.ITreeBlock;
 import com.songoda.ultimatetimber.tree.TreeBlockType;
 import com.songoda.ultimatetimber.tree.TreeDefinition;
 import org.bukkit.Bukkit;
-import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
 
-import java.util.HashSet;
 import java.util.Random;
-import java.util.Set;
 
 public class SaplingManager extends Manager {
 
     private final Random random;
-    private Set<Location> protectedSaplings;
+    private final BlockPosSet protectedSaplings;
 
     public SaplingManager(UltimateTimber ultimateTimber) {
         super(ultimateTimber);
         this.random = new Random();
-        this.protectedSaplings = new HashSet<>();
+        this.protectedSaplings = new BlockPosSet();
     }
 
     @Override
@@ -47,7 +46,7 @@ public class SaplingManager extends Manager {
         if (!ConfigurationManager.Setting.REPLANT_SAPLINGS.getBoolean())
             return;
 
-        Block block = treeBlock.getLocation().getBlock();
+        Block block = treeBlock.getWorld().getBlockAt(treeBlock.getX(), treeBlock.getY(), treeBlock.getZ());
         if (!block.getType().equals(Material.AIR) || treeBlock.getTreeBlockType().equals(TreeBlockType.LEAF))
             return;
 
@@ -62,7 +61,7 @@ public class SaplingManager extends Manager {
      * @param treeBlock The ITreeBlock to replant for
      */
     public void replantSaplingWithChance(TreeDefinition treeDefinition, ITreeBlock treeBlock) {
-        if (!ConfigurationManager.Setting.FALLING_BLOCKS_REPLANT_SAPLINGS.getBoolean() || !treeBlock.getLocation().getBlock().getType().equals(Material.AIR))
+        if (!ConfigurationManager.Setting.FALLING_BLOCKS_REPLANT_SAPLINGS.getBoolean() || !treeBlock.getWorld().getBlockAt(treeBlock.getX(), treeBlock.getY(), treeBlock.getZ()).getType().equals(Material.AIR))
             return;
 
         double chance = ConfigurationManager.Setting.FALLING_BLOCKS_REPLANT_SAPLINGS_CHANCE.getDouble();
@@ -81,7 +80,7 @@ public class SaplingManager extends Manager {
     private void internalReplant(TreeDefinition treeDefinition, ITreeBlock treeBlock) {
         TreeDefinitionManager treeDefinitionManager = this.plugin.getTreeDefinitionManager();
 
-        Block block = treeBlock.getLocation().getBlock();
+        Block block = treeBlock.getWorld().getBlockAt(treeBlock.getX(), treeBlock.getY(), treeBlock.getZ());
         Block blockBelow = block.getRelative(BlockFace.DOWN);
         boolean isValidSoil = false;
         for (CompatibleMaterial soilMaterial : treeDefinitionManager.getPlantableSoilMaterial(treeDefinition)) {
@@ -99,8 +98,9 @@ public class SaplingManager extends Manager {
 
         int cooldown = ConfigurationManager.Setting.REPLANT_SAPLINGS_COOLDOWN.getInt();
         if (cooldown != 0) {
-            this.protectedSaplings.add(block.getLocation());
-            Bukkit.getScheduler().scheduleSyncDelayedTask(this.plugin, () -> this.protectedSaplings.remove(block.getLocation()), cooldown * 20L);
+            BlockPos blockPos = new BlockPos(block);
+            this.protectedSaplings.add(blockPos);
+            Bukkit.getScheduler().scheduleSyncDelayedTask(this.plugin, () -> this.protectedSaplings.remove(blockPos), cooldown * 20L);
         }
     }
 
@@ -111,7 +111,7 @@ public class SaplingManager extends Manager {
      * @return True if the sapling is protected, otherwise false
      */
     public boolean isSaplingProtected(Block block) {
-        return this.protectedSaplings.contains(block.getLocation());
+        return !this.protectedSaplings.isEmpty() && this.protectedSaplings.contains(block.getWorld().getUID(), BlockPos.pack(block.getX(), block.getY(), block.getZ()));
     }
 
 }
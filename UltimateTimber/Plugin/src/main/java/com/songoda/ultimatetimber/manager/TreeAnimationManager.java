@@ -9,6 +9,7 @@ import com.songoda.ultimatetimber.animation.TreeAnimationDisintegrate;
 import com.songoda.ultimatetimber.animation.TreeAnimationFancy;
 import com.songoda.ultimatetimber.animation.TreeAnimationNone;
 import com.songoda.ultimatetimber.animation.TreeAnimationType;
+import com.songoda.ultimatetimber.tree.BlockPos;
 import com.songoda.ultimatetimber.tree.DetectedTree;
 import com.songoda.ultimatetimber.tree.ITreeBlock;
 import com.songoda.ultimatetimber.tree.TreeDefinition;
@@ -56,18 +57,16 @@ public class TreeAnimationManager extends Manager implements Listener, Runnable
     @Override
     public void run() {
         for (TreeAnimation treeAnimation : this.activeAnimations) {
-            Set<ITreeBlock<FallingBlock>> groundedBlocks = new HashSet<>();
+            // Grounded blocks can be removed from the animation while going over them
             for (ITreeBlock<FallingBlock> fallingTreeBlock : treeAnimation.getFallingTreeBlocks().getAllTreeBlocks()) {
                 FallingBlock fallingBlock = fallingTreeBlock.getBlock();
-                if (fallingBlock.isDead() || ServerVersion.isServerVersionAtLeast(ServerVersion.V1_17) && fallingBlock.isOnGround())
-                    groundedBlocks.add(fallingTreeBlock);
-            }
+                if (!fallingBlock.isDead() && !(ServerVersion.isServerVersionAtLeast(ServerVersion.V1_17) && fallingBlock.isOnGround()))
+                    continue;
 
-            for (ITreeBlock<FallingBlock> fallingBlock : groundedBlocks) {
-                this.runFallingBlockImpact(treeAnimation, fallingBlock);
+                this.runFallingBlockImpact(treeAnimation, fallingTreeBlock);
                 if (ServerVersion.isServerVersionAtLeast(ServerVersion.V1_17))
-                    fallingBlock.getBlock().remove();
-                treeAnimation.getFallingTreeBlocks().remove(fallingBlock);
+                    fallingBlock.remove();
+                treeAnimation.getFallingTreeBlocks().remove(fallingTreeBlock);
             }
         }
     }
@@ -93,10 +92,12 @@ public class TreeAnimationManager extends Manager implements Listener, Runnable
      * @param block The block to check
      */
     public boolean isBlockInAnimation(Block block) {
-        for (TreeAnimation treeAnimation : this.activeAnimations)
-            for (ITreeBlock<Block> treeBlock : treeAnimation.getDetectedTree().getDetectedTreeBlocks().getAllTreeBlocks())
-                if (treeBlock.getBlock().equals(block))
-                    return true;
+        long position = BlockPos.pack(block);
+        for (TreeAnimation treeAnimation : this.activeAnimations) {
+            ITreeBlock<Block> treeBlock = treeAnimation.getDetectedTree().getDetectedTreeBlocks().getTreeBlock(position);
+            if (treeBlock != null && treeBlock.getBlock().equals(block))
+                return true;
+        }
         return false;
     }
 
@@ -106,11 +107,7 @@ public class TreeAnimationManager extends Manager implements Listener, Runnable
      * @param fallingBlock The falling block to check
      */
     public boolean isBlockInAnimation(FallingBlock fallingBlock) {
-        for (TreeAnimation treeAnimation : this.activeAnimations)
-            for (ITreeBlock<FallingBlock> treeBlock : treeAnimation.getFallingTreeBlocks().getAllTreeBlocks())
-                if (treeBlock.getBlock().equals(fallingBlock))
-                    return true;
-        return false;
+        return this.getAnimationForBlock(fallingBlock) != null;
     }
 
     /**
@@ -119,10 +116,11 @@ public class TreeAnimationManager extends Manager implements Listener, Runnable
      * @return A TreeAnimation
      */
     private TreeAnimation getAnimationForBlock(FallingBlock fallingBlock) {
-        for (TreeAnimation treeAnimation : this.activeAnimations)
-            for (ITreeBlock<FallingBlock> treeBlock : treeAnimation.getFallingTreeBlocks().getAllTreeBlocks())
-                if (treeBlock.getBlock().equals(fallingBlock))
-                    return treeAnimation;
+        for (TreeAnimation treeAnimation : this.activeAnimations) {
+            ITreeBlock<FallingBlock> treeBlock = treeAnimation.getFallingTreeBlocks().getTreeBlock(fallingBlock.getEntityId());
+            if (treeBlock != null && treeBlock.getBlock().equals(fallingBlock))
+                return treeAnimation;
+        }
         return null;
     }
 
@@ -151,7 +149,7 @@ public class TreeAnimationManager extends Manager implements Listener, Runnable
         if (useCustomSound)
             SoundUtils.playLandingSound(treeBlock);
 
-        Block block = treeBlock.getLocation().subtract(0, 1, 0).getBlock();
+        Block block = treeBlock.getWorld().getBlockAt(treeBlock.getX(), treeBlock.getY() - 1, treeBlock.getZ());
         if (ConfigurationManager.Setting.FRAGILE_BLOCKS.getStringList().contains(block.getType().toString())) {
             block.getWorld().dropItemNaturally(block.getLocation(), CompatibleMaterial.getMaterial(block).getItem());
             block.breakNaturally();
@@ -0,0 +1,557 @@
+package com.songoda.ultimatetimber.manager;
+
+import com.songoda.ultimatetimber.UltimateTimber;
+import com.songoda.ultimatetimber.events.TreeFellEvent;
+import com.songoda.ultimatetimber.misc.LongIntHashMap;
+import com.songoda.ultimatetimber.tree.BlockPos;
+import com.songoda.ultimatetimber.tree.DetectedTreeSnapshot;
+import com.songoda.ultimatetimber.tree.TreeSnapshot;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.block.BlockState;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.*;
+import org.bukkit.event.entity.EntityChangeBlockEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.StructureGrowEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+
+import java.util.*;
+
+public class TreeCacheManager extends Manager implements Listener {
+
+    private final Map<UUID, LongIntHashMap> chunkVersions;
+    private final Map<UUID, CachedTree> speculativeTrees;
+    private final Map<BlockPos, CachedTree> cachedTreeBlocks;
+    private final ChangeListener changeListener;
+    private Map<BlockPos, CachedTree> cachedTrees;
+    private int cacheSize;
+
+    public TreeCacheManager(UltimateTimber ultimateTimber) {
+        super(ultimateTimber);
+        this.chunkVersions = new HashMap<>();
+        this.speculativeTrees = new HashMap<>();
+        this.cachedTreeBlocks = new HashMap<>();
+        this.changeListener = new ChangeListener();
+        Bukkit.getPluginManager().registerEvents(this, ultimateTimber);
+    }
+
+    @Override
+    public void reload() {
+        this.cacheSize = ConfigurationManager.Setting.DETECTION_CACHE_SIZE.getInt();
+        this.speculativeTrees.clear();
+        this.cachedTreeBlocks.clear();
+
+        // Changes only have to be tracked if detections are held on to
+        HandlerList.unregisterAll(this.changeListener);
+        if (this.cacheSize > 0 || ConfigurationManager.Setting.SPECULATIVE_TREE_DETECTION.getBoolean()) {
+            Bukkit.getPluginManager().registerEvents(this.changeListener, this.plugin);
+        } else {
+            this.chunkVersions.clear();
+        }
+
+        // Least recently used entries are removed first once the cache is full
+        this.cachedTrees = new LinkedHashMap<BlockPos, CachedTree>(16, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<BlockPos, CachedTree> eldest) {
+                if (this.size() <= TreeCacheManager.this.cacheSize)
+                    return false;
+
+                TreeCacheManager.this.unindex(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    @Override
+    public void disable() {
+        this.cachedTrees.clear();
+        this.cachedTreeBlocks.clear();
+        this.speculativeTrees.clear();
+        this.chunkVersions.clear();
+    }
+
+    /**
+     * Stamps an area with the current versions of the chunks covering it
+     * Must be called before the blocks of the area are read for the stamp to be safe to cache
+     *
+     * @param world The World of the area
+     * @param minX  The lowest X coordinate of the area
+     * @param minZ  The lowest Z coordinate of the area
+     * @param maxX  The highest X coordinate of the area
+     * @param maxZ  The highest Z coordinate of the area
+     * @return A CachedTree without a result yet
+     */
+    public CachedTree stamp(World world, int minX, int minZ, int maxX, int maxZ) {
+        CachedTree cachedTree = new CachedTree(world.getUID(), minX >> 4, minZ >> 4, maxX >> 4, maxZ >> 4);
+        LongIntHashMap versions = this.chunkVersions.get(cachedTree.worldId);
+        for (int chunkX = cachedTree.minChunkX; chunkX <= cachedTree.maxChunkX; chunkX++)
+            for (int chunkZ = cachedTree.minChunkZ; chunkZ <= cachedTree.maxChunkZ; chunkZ++)
+                cachedTree.versions[cachedTree.getIndex(chunkX, chunkZ)] = versions == null ? 0 : versions.get(getChunkKey(chunkX, chunkZ), 0);
+        return cachedTree;
+    }
+
+    /**
+     * Keeps a stamp valid while its detection is running, even if the initial block of the detection is broken
+     * Used for detections that are only finished after the initial block has been broken
+     *
+     * @param initialBlock The Block the detection starts from
+     * @param cachedTree   The stamp taken before the detection read any blocks
+     */
+    public void watchTree(Block initialBlock, CachedTree cachedTree) {
+        if (this.cacheSize <= 0)
+            return;
+
+        cachedTree.blockPos = new BlockPos(initialBlock);
+        cachedTree.blocks = new long[]{cachedTree.blockPos.getPacked()};
+        this.cachedTreeBlocks.put(cachedTree.blockPos, cachedTree);
+    }
+
+    /**
+     * Stops keeping a stamp valid that was watched with {@link #watchTree}, for detections that were dropped before they finished
+     *
+     * @param cachedTree The stamp taken before the detection read any blocks
+     */
+    public void unwatchTree(CachedTree cachedTree) {
+        if (!cachedTree.finished)
+            this.unindex(cachedTree);
+    }
+
+    /**
+     * Caches a detected tree, so breaking any of its logs reuses it until one of the chunks it read changes
+     * Nothing is cached if one of the chunks has already changed since the stamp was taken
+     *
+     * @param initialBlock The Block the detection started from
+     * @param cachedTree   The stamp taken before the detection read any blocks
+     * @param treeSnapshot The detected tree
+     * @param maxLogBlocks The number of logs the detection was limited to, or -1 for no limit
+     */
+    public void cacheTree(Block initialBlock, CachedTree cachedTree, TreeSnapshot treeSnapshot, int maxLogBlocks) {
+        if (this.cacheSize <= 0)
+            return;
+
+        this.unindex(cachedTree);
+        if (!this.isUnchanged(cachedTree))
+            return;
+
+        cachedTree.blockPos = new BlockPos(initialBlock);
+        cachedTree.treeSnapshot = treeSnapshot;
+        cachedTree.maxLogBlocks = maxLogBlocks > 0 ? maxLogBlocks : Integer.MAX_VALUE;
+        cachedTree.complete = treeSnapshot.getLogBlocks().length < cachedTree.maxLogBlocks;
+        cachedTree.blocks = treeSnapshot.getLogBlocks();
+        cachedTree.finished = true;
+        this.index(cachedTree);
+    }
+
+    /**
+     * Caches that a block and the logs around it are not part of a tree, so breaking any of them skips detection
+     * until one of the chunks the detection read changes
+     * Nothing is cached if one of the chunks has already changed since the stamp was taken
+     *
+     * @param initialBlock The Block the detection started from
+     * @param cachedTree   The stamp taken before the detection read any blocks
+     * @param logBlocks    The packed positions of the logs the detection looked at
+     * @param maxLogBlocks The number of logs the detection was limited to, or -1 for no limit
+     */
+    public void cacheNonTree(Block initialBlock, CachedTree cachedTree, long[] logBlocks, int maxLogBlocks) {
+        if (this.cacheSize <= 0 || logBlocks.length == 0)
+            return;
+
+        this.unindex(cachedTree);
+        if (!this.isUnchanged(cachedTree))
+            return;
+
+        cachedTree.blockPos = new BlockPos(initialBlock);
+        cachedTree.treeSnapshot = null;
+        cachedTree.maxLogBlocks = maxLogBlocks > 0 ? maxLogBlocks : Integer.MAX_VALUE;
+        cachedTree.complete = true;
+        cachedTree.blocks = logBlocks;
+        cachedTree.finished = true;
+        this.index(cachedTree);
+    }
+
+    /**
+     * Gets the cached detection a broken block is part of if none of the chunks it read have changed since
+     * Other than the block it was detected from, a tree is only reused for its logs if none of its logs were left out
+     * Logs known not to be part of a tree get a CachedTree without a TreeSnapshot
+     *
+     * @param block        The Block that was broken
+     * @param maxLogBlocks The number of logs the detection needs to have found, or -1 for no limit
+     * @return The CachedTree, or null if there is no valid cached detection
+     */
+    public CachedTree getCachedTree(Block block, int maxLogBlocks) {
+        if (this.cachedTreeBlocks.isEmpty())
+            return null;
+
+        CachedTree cachedTree = this.cachedTreeBlocks.get(new BlockPos(block));
+        if (cachedTree == null || !cachedTree.finished)
+            return null;
+
+        if (!this.isUnchanged(cachedTree)) {
+            this.cachedTrees.remove(cachedTree.blockPos, cachedTree);
+            this.unindex(cachedTree);
+            return null;
+        }
+
+        // A detection that stopped early may not have found enough logs
+        if (cachedTree.maxLogBlocks < (maxLogBlocks > 0 ? maxLogBlocks : Integer.MAX_VALUE))
+            return null;
+
+        if (!cachedTree.complete && !cachedTree.blockPos.equals(new BlockPos(block)))
+            return null;
+
+        // Counts as a use of the entry, so it isn't the next one to be removed
+        this.cachedTrees.get(cachedTree.blockPos);
+        return cachedTree;
+    }
+
+    /**
+     * Holds on to a detection a player started before breaking its initial block, replacing any earlier one of the player
+     * The detection is only used once it has been finished with {@link #finishSpeculativeTree}
+     *
+     * @param player       The Player that is breaking the block
+     * @param initialBlock The Block the detection starts from
+     * @param cachedTree   The stamp taken before the detection read any blocks
+     */
+    public void startSpeculativeTree(Player player, Block initialBlock, CachedTree cachedTree) {
+        cachedTree.blockPos = new BlockPos(initialBlock);
+        this.speculativeTrees.put(player.getUniqueId(), cachedTree);
+    }
+
+    /**
+     * Stores the result of a detection started with {@link #startSpeculativeTree}
+     * Nothing is stored if the detection has been replaced or taken in the meantime
+     *
+     * @param player       The Player that is breaking the block
+     * @param cachedTree   The stamp the detection was started with
+     * @param treeSnapshot The detected tree, or null if the block is known not to be part of a tree
+     * @param maxLogBlocks The number of logs the detection was limited to, or -1 for no limit
+     */
+    public void finishSpeculativeTree(Player player, CachedTree cachedTree, TreeSnapshot treeSnapshot, int maxLogBlocks) {
+        if (this.speculativeTrees.get(player.getUniqueId()) != cachedTree)
+            return;
+
+        cachedTree.treeSnapshot = treeSnapshot;
+        cachedTree.maxLogBlocks = maxLogBlocks > 0 ? maxLogBlocks : Integer.MAX_VALUE;
+        cachedTree.finished = true;
+    }
+
+    /**
+     * Discards a detection started with {@link #startSpeculativeTree} if it is still the one of the player
+     *
+     * @param player     The Player that is breaking the block
+     * @param cachedTree The stamp the detection was started with
+     */
+    public void discardSpeculativeTree(Player player, CachedTree cachedTree) {
+        this.speculativeTrees.remove(player.getUniqueId(), cachedTree);
+    }
+
+    /**
+     * Checks if a player already has a detection of a block that is still running or can still be used
+     *
+     * @param player       The Player that is breaking the block
+     * @param initialBlock The Block being broken
+     * @param maxLogBlocks The number of logs the detection needs to find, or -1 for no limit
+     * @return True if there is no need to start another detection, otherwise false
+     */
+    public boolean hasSpeculativeTree(Player player, Block initialBlock, int maxLogBlocks) {
+        if (this.speculativeTrees.isEmpty())
+            return false;
+
+        CachedTree cachedTree = this.speculativeTrees.get(player.getUniqueId());
+        if (cachedTree == null || !cachedTree.blockPos.equals(new BlockPos(initialBlock)))
+            return false;
+
+        return !cachedTree.finished || (cachedTree.maxLogBlocks >= (maxLogBlocks > 0 ? maxLogBlocks : Integer.MAX_VALUE) && this.isUnchanged(cachedTree));
+    }
+
+    /**
+     * Takes the detection a player started before breaking a block, if it is finished, for that block and nothing has changed since
+     * Whether it is valid or not, the detection is discarded afterwards
+     *
+     * @param player       The Player that broke the block
+     * @param initialBlock The Block that was broken
+     * @param maxLogBlocks The number of logs the detection needs to have found, or -1 for no limit
+     * @return The CachedTree, or null if there is no valid detection
+     */
+    public CachedTree takeSpeculativeTree(Player player, Block initialBlock, int maxLogBlocks) {
+        if (this.speculativeTrees.isEmpty())
+            return null;
+
+        CachedTree cachedTree = this.speculativeTrees.remove(player.getUniqueId());
+        if (cachedTree == null || !cachedTree.finished || !cachedTree.blockPos.equals(new BlockPos(initialBlock)))
+            return null;
+
+        if (cachedTree.maxLogBlocks < (maxLogBlocks > 0 ? maxLogBlocks : Integer.MAX_VALUE) || !this.isUnchanged(cachedTree))
+            return null;
+
+        return cachedTree;
+    }
+
+    @EventHandler
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        this.speculativeTrees.remove(event.getPlayer().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        UUID worldId = event.getWorld().getUID();
+        int chunkX = event.getChunk().getX(), chunkZ = event.getChunk().getZ();
+        LongIntHashMap versions = this.chunkVersions.get(worldId);
+        if (versions == null || !versions.remove(getChunkKey(chunkX, chunkZ)))
+            return;
+
+        // The version of the chunk starts over, so nothing stamped with the old one can stay
+        this.cachedTrees.values().removeIf(cachedTree -> cachedTree.worldId.equals(worldId) && cachedTree.coversChunk(chunkX, chunkZ));
+        this.cachedTreeBlocks.values().removeIf(cachedTree -> cachedTree.worldId.equals(worldId) && cachedTree.coversChunk(chunkX, chunkZ));
+        this.speculativeTrees.values().removeIf(cachedTree -> cachedTree.worldId.equals(worldId) && cachedTree.coversChunk(chunkX, chunkZ));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        UUID worldId = event.getWorld().getUID();
+        this.chunkVersions.remove(worldId);
+        this.cachedTrees.values().removeIf(cachedTree -> cachedTree.worldId.equals(worldId));
+        this.cachedTreeBlocks.values().removeIf(cachedTree -> cachedTree.worldId.equals(worldId));
+        this.speculativeTrees.values().removeIf(cachedTree -> cachedTree.worldId.equals(worldId));
+    }
+
+    /**
+     * Marks the blocks moved by a piston as changed, along with where they were moved to
+     */
+    private void markMoved(Block piston, List<Block> blocks, BlockFace direction) {
+        this.markChanged(piston);
+        this.markChanged(piston.getRelative(direction));
+        for (Block block : blocks) {
+            this.markChanged(block);
+            this.markChanged(block.getRelative(direction));
+        }
+    }
+
+    /**
+     * Bumps the version of the chunk a changed block is in
+     */
+    private void markChanged(Block block) {
+        LongIntHashMap versions = this.chunkVersions.computeIfAbsent(block.getWorld().getUID(), key -> new LongIntHashMap());
+        long chunkKey = getChunkKey(block.getX() >> 4, block.getZ() >> 4);
+        versions.put(chunkKey, versions.get(chunkKey, 0) + 1);
+    }
+
+    /**
+     * Updates the version of a single chunk of a CachedTree after a change that doesn't affect it
+     */
+    private void restamp(CachedTree cachedTree, int chunkX, int chunkZ) {
+        LongIntHashMap versions = this.chunkVersions.get(cachedTree.worldId);
+        if (versions != null && cachedTree.coversChunk(chunkX, chunkZ))
+            cachedTree.versions[cachedTree.getIndex(chunkX, chunkZ)] = versions.get(getChunkKey(chunkX, chunkZ), 0);
+    }
+
+    /**
+     * Adds a finished detection to the cache, indexed by every block breaking of which doesn't invalidate it
+     */
+    private void index(CachedTree cachedTree) {
+        CachedTree previous = this.cachedTrees.put(cachedTree.blockPos, cachedTree);
+        if (previous != null && previous != cachedTree)
+            this.unindex(previous);
+        for (long position : cachedTree.blocks)
+            this.cachedTreeBlocks.put(new BlockPos(cachedTree.worldId, position), cachedTree);
+    }
+
+    /**
+     * Removes the blocks of a detection from the index, leaving blocks that have been taken over by another detection
+     */
+    private void unindex(CachedTree cachedTree) {
+        if (cachedTree.blocks == null)
+            return;
+
+        for (long position : cachedTree.blocks)
+            this.cachedTreeBlocks.remove(new BlockPos(cachedTree.worldId, position), cachedTree);
+    }
+
+    /**
+     * Checks if none of the chunks covered by a CachedTree have changed since it was stamped
+     */
+    private boolean isUnchanged(CachedTree cachedTree) {
+        LongIntHashMap versions = this.chunkVersions.get(cachedTree.worldId);
+        for (int chunkX = cachedTree.minChunkX; chunkX <= cachedTree.maxChunkX; chunkX++) {
+            for (int chunkZ = cachedTree.minChunkZ; chunkZ <= cachedTree.maxChunkZ; chunkZ++) {
+                int version = versions == null ? 0 : versions.get(getChunkKey(chunkX, chunkZ), 0);
+                if (cachedTree.versions[cachedTree.getIndex(chunkX, chunkZ)] != version)
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    private static long getChunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Keeps the versions of the chunks up to date as blocks change
+     * Only registered while there is something to compare them against, as some of these events fire very often
+     */
+    private class ChangeListener implements Listener {
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onBlockPlaced(BlockPlaceEvent event) {
+            TreeCacheManager.this.markChanged(event.getBlock());
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onBlockBreak(BlockBreakEvent event) {
+            Block block = event.getBlock();
+            CachedTree cachedTree = TreeCacheManager.this.cachedTreeBlocks.isEmpty() ? null : TreeCacheManager.this.cachedTreeBlocks.get(new BlockPos(block));
+            boolean wasUnchanged = cachedTree != null && TreeCacheManager.this.isUnchanged(cachedTree);
+            TreeCacheManager.this.markChanged(block);
+
+            // Breaking one of the logs of a cached detection only takes that log away from it, so the rest of it stays valid
+            if (wasUnchanged)
+                TreeCacheManager.this.restamp(cachedTree, block.getX() >> 4, block.getZ() >> 4);
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onLeafDecay(LeavesDecayEvent event) {
+            TreeCacheManager.this.markChanged(event.getBlock());
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onBlockBurn(BlockBurnEvent event) {
+            TreeCacheManager.this.markChanged(event.getBlock());
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onBlockFade(BlockFadeEvent event) {
+            TreeCacheManager.this.markChanged(event.getBlock());
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onBlockExplode(BlockExplodeEvent event) {
+            for (Block block : event.blockList())
+                TreeCacheManager.this.markChanged(block);
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onEntityExplode(EntityExplodeEvent event) {
+            for (Block block : event.blockList())
+                TreeCacheManager.this.markChanged(block);
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onPistonExtend(BlockPistonExtendEvent event) {
+            TreeCacheManager.this.markMoved(event.getBlock(), event.getBlocks(), event.getDirection());
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onPistonRetract(BlockPistonRetractEvent event) {
+            TreeCacheManager.this.markMoved(event.getBlock(), event.getBlocks(), event.getDirection());
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onStructureGrow(StructureGrowEvent event) {
+            for (BlockState blockState : event.getBlocks())
+                TreeCacheManager.this.markChanged(blockState.getBlock());
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onEntityChangeBlock(EntityChangeBlockEvent event) {
+            TreeCacheManager.this.markChanged(event.getBlock());
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onTreeFell(TreeFellEvent event) {
+            // Every chunk the tree was in is changed, so there is no need to look at the blocks one by one
+            DetectedTreeSnapshot treeSnapshot = event.getTreeSnapshot();
+            if (treeSnapshot.size() == 0)
+                return;
+
+            LongIntHashMap versions = TreeCacheManager.this.chunkVersions.computeIfAbsent(treeSnapshot.getWorld().getUID(), key -> new LongIntHashMap());
+            for (int chunkX = treeSnapshot.getMinX() >> 4; chunkX <= treeSnapshot.getMaxX() >> 4; chunkX++) {
+                for (int chunkZ = treeSnapshot.getMinZ() >> 4; chunkZ <= treeSnapshot.getMaxZ() >> 4; chunkZ++) {
+                    long chunkKey = getChunkKey(chunkX, chunkZ);
+                    versions.put(chunkKey, versions.get(chunkKey, 0) + 1);
+                }
+            }
+        }
+
+    }
+
+    /**
+     * A detection result along with the versions of the chunks it read
+     */
+    public static class CachedTree {
+
+        private final UUID worldId;
+        private final int minChunkX, minChunkZ, maxChunkX, maxChunkZ;
+        private final int[] versions;
+        private TreeSnapshot treeSnapshot;
+        private int maxLogBlocks;
+        private BlockPos blockPos;
+        private long[] blocks;
+        private boolean finished, complete;
+
+        private CachedTree(UUID worldId, int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ) {
+            this.worldId = worldId;
+            this.minChunkX = minChunkX;
+            this.minChunkZ = minChunkZ;
+            this.maxChunkX = maxChunkX;
+            this.maxChunkZ = maxChunkZ;
+            this.versions = new int[(maxChunkX - minChunkX + 1) * (maxChunkZ - minChunkZ + 1)];
+        }
+
+        /**
+         * Gets the detected tree
+         *
+         * @return The TreeSnapshot of the detected tree, or null if the block is known not to be part of a tree
+         */
+        public TreeSnapshot getTreeSnapshot() {
+            return this.treeSnapshot;
+        }
+
+        /**
+         * Gets the detected tree as if it was detected from one of its other logs
+         *
+         * @param block                The Block that was broken, one of the logs of the tree
+         * @param onlyBreakLogsUpwards If logs below the broken block should be left out
+         * @return The TreeSnapshot of the detected tree, or null if the block is known not to be part of a tree
+         */
+        public TreeSnapshot getTreeSnapshot(Block block, boolean onlyBreakLogsUpwards) {
+            long position = BlockPos.pack(block);
+            if (this.treeSnapshot == null || this.treeSnapshot.getInitialLogBlock() == position)
+                return this.treeSnapshot;
+
+            return this.treeSnapshot.withInitialLogBlock(position, onlyBreakLogsUpwards ? block.getY() : Integer.MIN_VALUE);
+        }
+
+        /**
+         * Checks if an area of blocks is within the chunks this CachedTree has the versions of
+         *
+         * @param minX The lowest X coordinate of the area
+         * @param minZ The lowest Z coordinate of the area
+         * @param maxX The highest X coordinate of the area
+         * @param maxZ The highest Z coordinate of the area
+         * @return True if the whole area is covered, otherwise false
+         */
+        public boolean covers(int minX, int minZ, int maxX, int maxZ) {
+            return minX >> 4 >= this.minChunkX && maxX >> 4 <= this.maxChunkX && minZ >> 4 >= this.minChunkZ && maxZ >> 4 <= this.maxChunkZ;
+        }
+
+        private boolean coversChunk(int chunkX, int chunkZ) {
+            return chunkX >= this.minChunkX && chunkX <= this.maxChunkX && chunkZ >= this.minChunkZ && chunkZ <= this.maxChunkZ;
+        }
+
+        private int getIndex(int chunkX, int chunkZ) {
+            return (chunkX - this.minChunkX) * (this.maxChunkZ - this.minChunkZ + 1) + (chunkZ - this.minChunkZ);
+        }
+
+    }
+
+}
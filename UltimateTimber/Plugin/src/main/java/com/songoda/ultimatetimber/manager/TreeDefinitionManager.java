@@ -30,8 +30,14 @@ import java.util.stream.Collectors;
 
 public class TreeDefinitionManager extends Manager {
 
+    // Trees that didn't say if they grow a 2x2 trunk only do if their sapling can grow one
+    private static final Set<CompatibleMaterial> MEGA_TRUNK_SAPLINGS = EnumSet.of(CompatibleMaterial.SPRUCE_SAPLING, CompatibleMaterial.JUNGLE_SAPLING, CompatibleMaterial.DARK_OAK_SAPLING);
+
     private final Random random;
     private final Set<TreeDefinition> treeDefinitions;
+    private MaterialIndex materialIndex;
+    private MaterialIndex[] logMaterialIndexes;
+    private boolean[] logMaterials, leafMaterials, saplingMaterials;
     private final Set<CompatibleMaterial> globalPlantableSoil;
     private final Set<TreeLoot> globalLogLoot, globalLeafLoot, globalEntireTreeLoot;
     private final Set<ItemStack> globalRequiredTools;
@@ -48,7 +54,7 @@ public class TreeDefinitionManager extends Manager {
     public TreeDefinitionManager(UltimateTimber ultimateTimber) {
         super(ultimateTimber);
         this.random = new Random();
-        this.treeDefinitions = new HashSet<>();
+        this.treeDefinitions = new LinkedHashSet<>();
         this.globalPlantableSoil = new HashSet<>();
         this.globalLogLoot = new HashSet<>();
         this.globalLeafLoot = new HashSet<>();
@@ -90,6 +96,7 @@ public class TreeDefinitionManager extends Manager {
             double maxLogDistanceFromTrunk;
             int maxLeafDistanceFromLog;
             boolean detectLeavesDiagonally;
+            boolean megaTrunk;
             boolean dropOriginalLog;
             boolean dropOriginalLeaf;
             Set<TreeLoot> logLoot = new HashSet<>();
@@ -121,6 +128,7 @@ public class TreeDefinitionManager extends Manager {
             maxLogDistanceFromTrunk = tree.getDouble("max-log-distance-from-trunk");
             maxLeafDistanceFromLog = tree.getInt("max-leaf-distance-from-log");
             detectLeavesDiagonally = tree.getBoolean("search-for-leaves-diagonally");
+            megaTrunk = tree.getBoolean("mega-trunk", MEGA_TRUNK_SAPLINGS.contains(saplingMaterial));
             dropOriginalLog = tree.getBoolean("drop-original-log");
             dropOriginalLeaf = tree.getBoolean("drop-original-leaf");
 
@@ -144,7 +152,7 @@ public class TreeDefinitionManager extends Manager {
 
             requiredAxe = tree.getBoolean("required-axe", false);
 
-            this.treeDefinitions.add(new TreeDefinition(key, logMaterials, leafMaterials, saplingMaterial, plantableSoilMaterial, maxLogDistanceFromTrunk, maxLeafDistanceFromLog, detectLeavesDiagonally, dropOriginalLog, dropOriginalLeaf, logLoot, leafLoot, entireTreeLoot, requiredTools, requiredAxe));
+            this.treeDefinitions.add(new TreeDefinition(key, logMaterials, leafMaterials, saplingMaterial, plantableSoilMaterial, maxLogDistanceFromTrunk, maxLeafDistanceFromLog, detectLeavesDiagonally, dropOriginalLog, dropOriginalLeaf, logLoot, leafLoot, entireTreeLoot, requiredTools, requiredAxe, megaTrunk));
         }
 
         // Load global plantable soil
@@ -178,6 +186,59 @@ public class TreeDefinitionManager extends Manager {
 
         // Load required axe
         if (config.contains("required-axe")) loadAxe(config);
+
+        this.buildMaterialIndex();
+    }
+
+    /**
+     * Maps every CompatibleMaterial to a bitmask of the TreeDefinitions it's a log, leaf or soil of
+     * A bitmask only has room for 64 TreeDefinitions, if there are more each log material gets its own MaterialIndex
+     * of only the TreeDefinitions it's a log of, as a detection never considers any other TreeDefinition than those
+     */
+    private void buildMaterialIndex() {
+        int materialCount = CompatibleMaterial.values().length;
+        boolean[] logMaterials = new boolean[materialCount];
+        boolean[] leafMaterials = new boolean[materialCount];
+        boolean[] saplingMaterials = new boolean[materialCount];
+        for (TreeDefinition treeDefinition : this.treeDefinitions) {
+            for (CompatibleMaterial material : treeDefinition.getLogMaterial())
+                logMaterials[material.ordinal()] = true;
+            for (CompatibleMaterial material : treeDefinition.getLeafMaterial())
+                leafMaterials[material.ordinal()] = true;
+            if (treeDefinition.getSaplingMaterial() != null)
+                saplingMaterials[treeDefinition.getSaplingMaterial().ordinal()] = true;
+        }
+
+        this.logMaterials = logMaterials;
+        this.leafMaterials = leafMaterials;
+        this.saplingMaterials = saplingMaterials;
+        this.logMaterialIndexes = null;
+
+        if (this.treeDefinitions.size() <= Long.SIZE) {
+            this.materialIndex = new MaterialIndex(new ArrayList<>(this.treeDefinitions), this.globalPlantableSoil);
+            return;
+        }
+
+        // Log materials shared by the same TreeDefinitions, like the log and wood of a tree, share their MaterialIndex
+        this.materialIndex = null;
+        this.logMaterialIndexes = new MaterialIndex[materialCount];
+        Map<List<TreeDefinition>, MaterialIndex> materialIndexes = new HashMap<>();
+        for (CompatibleMaterial material : CompatibleMaterial.values()) {
+            if (!logMaterials[material.ordinal()])
+                continue;
+
+            List<TreeDefinition> treeDefinitions = new ArrayList<>();
+            for (TreeDefinition treeDefinition : this.treeDefinitions)
+                if (treeDefinition.getLogMaterial().contains(material))
+                    treeDefinitions.add(treeDefinition);
+
+            if (treeDefinitions.size() > Long.SIZE) {
+                this.plugin.getLogger().warning("Only " + Long.SIZE + " tree definitions can share the log " + material.name() + ", only the first " + Long.SIZE + " are used.");
+                treeDefinitions = new ArrayList<>(treeDefinitions.subList(0, Long.SIZE));
+            }
+
+            this.logMaterialIndexes[material.ordinal()] = materialIndexes.computeIfAbsent(treeDefinitions, x -> new MaterialIndex(x, this.globalPlantableSoil));
+        }
     }
 
     private void loadAxe(YamlConfiguration config) {
@@ -429,6 +490,10 @@ public class TreeDefinitionManager extends Manager {
         return Objects.requireNonNullElse(isOverrideMaxLogsPerChop.get(nbt), false);
     }
 
+    public boolean hasAxeOverridingMaxLogsPerChop() {
+        return isOverrideMaxLogsPerChop.containsValue(true);
+    }
+
     public int getAxeMaxLogsPerChop(String nbt) {
         if (nbt == null) {
             return -1;
@@ -448,43 +513,56 @@ public class TreeDefinitionManager extends Manager {
      * @return A Set of TreeDefinitions for the given Block
      */
     public Set<TreeDefinition> getTreeDefinitionsForLog(Block block) {
-        return this.narrowTreeDefinition(this.treeDefinitions, block, TreeBlockType.LOG);
+        CompatibleMaterial material = CompatibleMaterial.getMaterial(block);
+        MaterialIndex materialIndex = this.getMaterialIndex(material);
+        Set<TreeDefinition> matchingTreeDefinitions = new HashSet<>();
+        for (long mask = materialIndex.getLogMask(material); mask != 0; mask &= mask - 1)
+            matchingTreeDefinitions.add(materialIndex.getFirstTreeDefinition(mask));
+        return matchingTreeDefinitions;
     }
 
     /**
-     * Narrows a Set of TreeDefinitions down to ones matching the given Block and TreeBlockType
+     * Gets the MaterialIndex to detect a tree starting at a log of the given material with
      *
-     * @param possibleTreeDefinitions The possible TreeDefinitions
-     * @param block                   The Block to narrow to
-     * @param treeBlockType           The TreeBlockType of the given Block
-     * @return A Set of TreeDefinitions narrowed down
+     * @param logMaterial The CompatibleMaterial of the starting log
+     * @return A MaterialIndex that includes every TreeDefinition the material is a log of
      */
-    public Set<TreeDefinition> narrowTreeDefinition(Set<TreeDefinition> possibleTreeDefinitions, Block block, TreeBlockType treeBlockType) {
-        Set<TreeDefinition> matchingTreeDefinitions = new HashSet<>();
-        switch (treeBlockType) {
-            case LOG:
-                for (TreeDefinition treeDefinition : possibleTreeDefinitions) {
-                    for (CompatibleMaterial material : treeDefinition.getLogMaterial()) {
-                        if (material.equals(CompatibleMaterial.getMaterial(block))) {
-                            matchingTreeDefinitions.add(treeDefinition);
-                            break;
-                        }
-                    }
-                }
-                break;
-            case LEAF:
-                for (TreeDefinition treeDefinition : possibleTreeDefinitions) {
-                    for (CompatibleMaterial material : treeDefinition.getLeafMaterial()) {
-                        if (material.equals(CompatibleMaterial.getMaterial(block))) {
-                            matchingTreeDefinitions.add(treeDefinition);
-                            break;
-                        }
-                    }
-                }
-                break;
-        }
+    public MaterialIndex getMaterialIndex(CompatibleMaterial logMaterial) {
+        if (this.materialIndex != null)
+            return this.materialIndex;
 
-        return matchingTreeDefinitions;
+        MaterialIndex materialIndex = logMaterial == null ? null : this.logMaterialIndexes[logMaterial.ordinal()];
+        return materialIndex != null ? materialIndex : MaterialIndex.EMPTY;
+    }
+
+    /**
+     * Checks if breaking a block of the given material could topple a tree
+     *
+     * @param material The CompatibleMaterial to check
+     * @return True if the material is a log of any TreeDefinition, otherwise false
+     */
+    public boolean isLogMaterial(CompatibleMaterial material) {
+        return material != null && this.logMaterials[material.ordinal()];
+    }
+
+    /**
+     * Checks if the given material is a leaf of any TreeDefinition
+     *
+     * @param material The CompatibleMaterial to check
+     * @return True if the material is a leaf of any TreeDefinition, otherwise false
+     */
+    public boolean isLeafMaterial(CompatibleMaterial material) {
+        return material != null && this.leafMaterials[material.ordinal()];
+    }
+
+    /**
+     * Checks if the given material is the sapling of any TreeDefinition
+     *
+     * @param material The CompatibleMaterial to check
+     * @return True if the material is the sapling of any TreeDefinition, otherwise false
+     */
+    public boolean isSaplingMaterial(CompatibleMaterial material) {
+        return material != null && this.saplingMaterials[material.ordinal()];
     }
 
     /**
@@ -606,22 +684,22 @@ public class TreeDefinitionManager extends Manager {
         }
 
         // Add to inventory or drop on ground
-        if (addToInventory && player.getWorld().equals(treeBlock.getLocation().getWorld())) {
+        if (addToInventory && player.getWorld().equals(treeBlock.getWorld())) {
             List<ItemStack> extraItems = new ArrayList<>();
             for (ItemStack lootedItem : lootedItems)
                 extraItems.addAll(player.getInventory().addItem(lootedItem).values());
             Location location = player.getLocation().clone().subtract(0.5, 0, 0.5);
             for (ItemStack extraItem : extraItems)
                 location.getWorld().dropItemNaturally(location, extraItem);
-        } else {
-            Location location = treeBlock.getLocation().clone().add(0.5, 0.5, 0.5);
+        } else if (!lootedItems.isEmpty()) {
+            Location location = new Location(treeBlock.getWorld(), treeBlock.getX() + 0.5, treeBlock.getY() + 0.5, treeBlock.getZ() + 0.5);
             for (ItemStack lootedItem : lootedItems)
                 location.getWorld().dropItemNaturally(location, lootedItem);
         }
 
         // Run looted commands
         for (String lootedCommand : lootedCommands)
-            Bukkit.getServer().dispatchCommand(Bukkit.getConsoleSender(), lootedCommand.replace("%player%", player.getName()).replace("%type%", treeDefinition.getKey()).replace("%xPos%", treeBlock.getLocation().getBlockX() + "").replace("%yPos%", treeBlock.getLocation().getBlockY() + "").replace("%zPos%", treeBlock.getLocation().getBlockZ() + ""));
+            Bukkit.getServer().dispatchCommand(Bukkit.getConsoleSender(), lootedCommand.replace("%player%", player.getName()).replace("%type%", treeDefinition.getKey()).replace("%xPos%", String.valueOf(treeBlock.getX())).replace("%yPos%", String.valueOf(treeBlock.getY())).replace("%zPos%", String.valueOf(treeBlock.getZ())));
     }
 
     /**
@@ -653,4 +731,114 @@ public class TreeDefinitionManager extends Manager {
         double chance = configurationSection.getDouble("chance");
         return new TreeLoot(treeBlockType, item, command, chance);
     }
+
+    /**
+     * Bitmasks of the TreeDefinitions each CompatibleMaterial is a log, leaf or soil of, for up to 64 TreeDefinitions
+     * The bit of a TreeDefinition is its position in the loaded order
+     */
+    public static class MaterialIndex {
+
+        private static final MaterialIndex EMPTY = new MaterialIndex(Collections.emptyList(), Collections.emptySet());
+
+        private final TreeDefinition[] treeDefinitions;
+        private final long[] logMasks, leafMasks, soilMasks;
+        private final long diagonalLeavesMask, megaTrunkMask;
+
+        private MaterialIndex(List<TreeDefinition> treeDefinitions, Set<CompatibleMaterial> globalPlantableSoil) {
+            int materialCount = CompatibleMaterial.values().length;
+            this.treeDefinitions = treeDefinitions.toArray(new TreeDefinition[0]);
+            this.logMasks = new long[materialCount];
+            this.leafMasks = new long[materialCount];
+            this.soilMasks = new long[materialCount];
+            long diagonalLeavesMask = 0, megaTrunkMask = 0;
+
+            for (int i = 0; i < this.treeDefinitions.length; i++) {
+                TreeDefinition treeDefinition = this.treeDefinitions[i];
+                long bit = 1L << i;
+
+                for (CompatibleMaterial material : treeDefinition.getLogMaterial())
+                    this.logMasks[material.ordinal()] |= bit;
+
+                for (CompatibleMaterial material : treeDefinition.getLeafMaterial())
+                    this.leafMasks[material.ordinal()] |= bit;
+
+                for (CompatibleMaterial material : treeDefinition.getPlantableSoilMaterial())
+                    if (material != null)
+                        this.soilMasks[material.ordinal()] |= bit;
+
+                for (CompatibleMaterial material : globalPlantableSoil)
+                    if (material != null)
+                        this.soilMasks[material.ordinal()] |= bit;
+
+                if (treeDefinition.shouldDetectLeavesDiagonally())
+                    diagonalLeavesMask |= bit;
+
+                if (treeDefinition.canGrowMegaTrunk())
+                    megaTrunkMask |= bit;
+            }
+
+            this.diagonalLeavesMask = diagonalLeavesMask;
+            this.megaTrunkMask = megaTrunkMask;
+        }
+
+        /**
+         * Gets a bitmask of the TreeDefinitions the given material is a log of
+         *
+         * @param material The CompatibleMaterial to check
+         * @return A bitmask of TreeDefinitions, 0 if none match
+         */
+        public long getLogMask(CompatibleMaterial material) {
+            return material == null ? 0 : this.logMasks[material.ordinal()];
+        }
+
+        /**
+         * Gets a bitmask of the TreeDefinitions the given material is a leaf of
+         *
+         * @param material The CompatibleMaterial to check
+         * @return A bitmask of TreeDefinitions, 0 if none match
+         */
+        public long getLeafMask(CompatibleMaterial material) {
+            return material == null ? 0 : this.leafMasks[material.ordinal()];
+        }
+
+        /**
+         * Gets a bitmask of the TreeDefinitions the given material is plantable soil of, including global plantable soil
+         *
+         * @param material The CompatibleMaterial to check
+         * @return A bitmask of TreeDefinitions, 0 if none match
+         */
+        public long getSoilMask(CompatibleMaterial material) {
+            return material == null ? 0 : this.soilMasks[material.ordinal()];
+        }
+
+        /**
+         * Gets a bitmask of the TreeDefinitions that search for leaves diagonally
+         *
+         * @return A bitmask of TreeDefinitions
+         */
+        public long getDiagonalLeavesMask() {
+            return this.diagonalLeavesMask;
+        }
+
+        /**
+         * Gets a bitmask of the TreeDefinitions that can grow a 2x2 trunk
+         *
+         * @return A bitmask of TreeDefinitions
+         */
+        public long getMegaTrunkMask() {
+            return this.megaTrunkMask;
+        }
+
+        /**
+         * Gets the TreeDefinition with the lowest bit in the given bitmask
+         *
+         * @param treeDefinitionMask A non-zero bitmask of TreeDefinitions
+         * @return The first TreeDefinition of the bitmask
+         */
+        public TreeDefinition getFirstTreeDefinition(long treeDefinitionMask) {
+            return this.treeDefinitions[Long.numberOfTrailingZeros(treeDefinitionMask)];
+        }
+
+    }
+
 }
@@ -2,63 +2,95 @@ package com.songoda.ultimatetimber.manager;
 
 import com.songoda.core.compatibility.CompatibleMaterial;
 import com.songoda.ultimatetimber.UltimateTimber;
+import com.songoda.ultimatetimber.detection.DetectionEngine;
+import com.songoda.ultimatetimber.detection.TrunkStrategy;
 import com.songoda.ultimatetimber.tree.*;
-import org.bukkit.Location;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
 import org.bukkit.block.Block;
-import org.bukkit.block.BlockFace;
-import org.bukkit.util.Vector;
 
-import java.util.*;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.function.Consumer;
 
-public class TreeDetectionManager extends Manager {
+public class TreeDetectionManager extends Manager implements Runnable {
 
-    private final Set<Vector> VALID_TRUNK_OFFSETS, VALID_BRANCH_OFFSETS, VALID_LEAF_OFFSETS;
+    private final Queue<QueuedDetectionJob> queuedDetectionJobs;
+    private final int taskId;
 
-    private TreeDefinitionManager treeDefinitionManager;
     private PlacedBlockManager placedBlockManager;
-    private int numLeavesRequiredForTree;
-    private boolean onlyBreakLogsUpwards, entireTreeBase, destroyLeaves;
+    private DetectionEngine detectionEngine;
+    private TrunkStrategy[] trunkStrategies, treeBaseTrunkStrategies;
+    private int detectionBudgetPerTick, remainingDetectionBudget;
 
     public TreeDetectionManager(UltimateTimber ultimateTimber) {
         super(ultimateTimber);
-
-        this.VALID_BRANCH_OFFSETS = new HashSet<>();
-        this.VALID_TRUNK_OFFSETS = new HashSet<>();
-        this.VALID_LEAF_OFFSETS = new HashSet<>();
-
-        // 3x2x3 centered around log, excluding -y axis
-        for (int y = 0; y <= 1; y++)
-            for (int x = -1; x <= 1; x++)
-                for (int z = -1; z <= 1; z++)
-                    this.VALID_BRANCH_OFFSETS.add(new Vector(x, y, z));
-
-        // 3x3x3 centered around log
-        for (int y = -1; y <= 1; y++)
-            for (int x = -1; x <= 1; x++)
-                for (int z = -1; z <= 1; z++)
-                    this.VALID_TRUNK_OFFSETS.add(new Vector(x, y, z));
-
-        // Adjacent blocks to log
-        for (int i = -1; i <= 1; i += 2) {
-            this.VALID_LEAF_OFFSETS.add(new Vector(i, 0, 0));
-            this.VALID_LEAF_OFFSETS.add(new Vector(0, i, 0));
-            this.VALID_LEAF_OFFSETS.add(new Vector(0, 0, i));
-        }
+        this.queuedDetectionJobs = new ArrayDeque<>();
+        this.taskId = Bukkit.getScheduler().runTaskTimer(this.plugin, this, 0, 1L).getTaskId();
     }
 
     @Override
     public void reload() {
-        this.treeDefinitionManager = this.plugin.getTreeDefinitionManager();
         this.placedBlockManager = this.plugin.getPlacedBlockManager();
-        this.numLeavesRequiredForTree = ConfigurationManager.Setting.LEAVES_REQUIRED_FOR_TREE.getInt();
-        this.onlyBreakLogsUpwards = ConfigurationManager.Setting.ONLY_DETECT_LOGS_UPWARDS.getBoolean();
-        this.entireTreeBase = ConfigurationManager.Setting.BREAK_ENTIRE_TREE_BASE.getBoolean();
-        this.destroyLeaves = ConfigurationManager.Setting.DESTROY_LEAVES.getBoolean();
+        this.detectionEngine = new DetectionEngine(this.plugin.getTreeDefinitionManager());
+        this.detectionBudgetPerTick = ConfigurationManager.Setting.DETECTION_BLOCKS_PER_TICK.getInt();
+
+        // Giant trees are recognised by their footprint first, horizontal trees are only looked for once the block
+        // turned out not to be part of an upright tree
+        List<TrunkStrategy> trunkStrategies = new ArrayList<>();
+        if (ConfigurationManager.Setting.DETECT_MEGA_TRUNKS.getBoolean())
+            trunkStrategies.add(TrunkStrategy.MEGA);
+        trunkStrategies.add(TrunkStrategy.VERTICAL);
+        if (ConfigurationManager.Setting.DETECT_HORIZONTAL_WOODS.getBoolean())
+            trunkStrategies.add(TrunkStrategy.HORIZONTAL);
+        this.trunkStrategies = trunkStrategies.toArray(new TrunkStrategy[0]);
+
+        // Horizontal trees have no leaves to stop at, so they are cheap enough to detect in full when checking a tree base
+        this.treeBaseTrunkStrategies = ConfigurationManager.Setting.DETECT_HORIZONTAL_WOODS.getBoolean()
+                ? new TrunkStrategy[]{TrunkStrategy.HORIZONTAL} : new TrunkStrategy[0];
+
+        // Queued detections were started against the old tree definitions
+        this.dropQueuedDetectionJobs();
     }
 
     @Override
     public void disable() {
+        this.dropQueuedDetectionJobs();
+        Bukkit.getScheduler().cancelTask(this.taskId);
+    }
 
+    /**
+     * Drops all queued detections, their callbacks are still run so whatever was held on to for them is let go of
+     */
+    private void dropQueuedDetectionJobs() {
+        QueuedDetectionJob queuedDetectionJob;
+        while ((queuedDetectionJob = this.queuedDetectionJobs.poll()) != null)
+            queuedDetectionJob.callback.accept(null);
+    }
+
+    @Override
+    public void run() {
+        this.remainingDetectionBudget = this.detectionBudgetPerTick;
+        while (this.remainingDetectionBudget > 0 && !this.queuedDetectionJobs.isEmpty()) {
+            QueuedDetectionJob queuedDetectionJob = this.queuedDetectionJobs.peek();
+            DetectionJob detectionJob = queuedDetectionJob.detectionJob;
+            this.remainingDetectionBudget = detectionJob.process(this.remainingDetectionBudget);
+            if (detectionJob.isDone()) {
+                this.queuedDetectionJobs.poll();
+                queuedDetectionJob.callback.accept(detectionJob.getResult());
+            }
+        }
+    }
+
+    /**
+     * Gets the DetectionEngine that detects trees with the current settings
+     *
+     * @return The DetectionEngine
+     */
+    public DetectionEngine getDetectionEngine() {
+        return this.detectionEngine;
     }
 
     /**
@@ -68,221 +100,141 @@ public class TreeDetectionManager extends Manager {
      * @return A DetectedTree if one was found, otherwise null
      */
     public DetectedTree detectTree(Block initialBlock) {
-
-        TreeBlock initialTreeBlock = new TreeBlock(initialBlock, TreeBlockType.LOG);
-        TreeBlockSet<Block> detectedTreeBlocks = new TreeBlockSet<>(initialTreeBlock);
-        Set<TreeDefinition> possibleTreeDefinitions = this.treeDefinitionManager.getTreeDefinitionsForLog(initialBlock);
-
-        if (possibleTreeDefinitions.isEmpty())
-            return null;
-
-        // Detect tree trunk
-        List<Block> trunkBlocks = new ArrayList<>();
-        trunkBlocks.add(initialBlock);
-        Block targetBlock = initialBlock;
-        while (this.isValidLogType(possibleTreeDefinitions, null, (targetBlock = targetBlock.getRelative(BlockFace.UP)))) {
-            trunkBlocks.add(targetBlock);
-            possibleTreeDefinitions.retainAll(this.treeDefinitionManager.narrowTreeDefinition(possibleTreeDefinitions, targetBlock, TreeBlockType.LOG));
-        }
-
-        if (!this.onlyBreakLogsUpwards) {
-            targetBlock = initialBlock;
-            while (this.isValidLogType(possibleTreeDefinitions, null, (targetBlock = targetBlock.getRelative(BlockFace.DOWN)))) {
-                trunkBlocks.add(targetBlock);
-                possibleTreeDefinitions.retainAll(this.treeDefinitionManager.narrowTreeDefinition(possibleTreeDefinitions, targetBlock, TreeBlockType.LOG));
-            }
-        }
-
-        // Lowest blocks at the front of the list
-        Collections.reverse(trunkBlocks);
-
-        // Detect branches off the main trunk
-        for (Block trunkBlock : trunkBlocks)
-            this.recursiveBranchSearch(possibleTreeDefinitions, trunkBlocks, detectedTreeBlocks, trunkBlock, initialBlock.getLocation().getBlockY());
-
-        // Detect leaves off the trunk/branches
-        Set<ITreeBlock<Block>> branchBlocks = new HashSet<>(detectedTreeBlocks.getLogBlocks());
-        for (ITreeBlock<Block> branchBlock : branchBlocks)
-            this.recursiveLeafSearch(possibleTreeDefinitions, detectedTreeBlocks, branchBlock.getBlock(), new HashSet<>());
-
-        // Use the first tree definition in the set
-        TreeDefinition actualTreeDefinition = possibleTreeDefinitions.iterator().next();
-
-        // Trees need at least a certain number of leaves
-        if (detectedTreeBlocks.getLeafBlocks().size() < this.numLeavesRequiredForTree)
-            return null;
-
-        // Remove leaves if we don't care about the leaves
-        if (!this.destroyLeaves)
-            detectedTreeBlocks.removeAll(TreeBlockType.LEAF);
-
-        // Check that the tree isn't on the ground if enabled
-        if (this.entireTreeBase) {
-            Set<Block> groundBlocks = new HashSet<>();
-            for (ITreeBlock<Block> treeBlock : detectedTreeBlocks.getLogBlocks())
-                if (treeBlock != detectedTreeBlocks.getInitialLogBlock() && treeBlock.getLocation().getBlockY() == initialBlock.getLocation().getBlockY())
-                    groundBlocks.add(treeBlock.getBlock());
-
-            for (Block block : groundBlocks) {
-                Block blockBelow = block.getRelative(BlockFace.DOWN);
-                boolean blockBelowIsLog = this.isValidLogType(possibleTreeDefinitions, null, blockBelow);
-                boolean blockBelowIsSoil = false;
-                for (CompatibleMaterial material : this.treeDefinitionManager.getPlantableSoilMaterial(actualTreeDefinition)) {
-                    if (material.equals(CompatibleMaterial.getMaterial(blockBelow))) {
-                        blockBelowIsSoil = true;
-                        break;
-                    }
-                }
-
-                if (blockBelowIsLog || blockBelowIsSoil)
-                    return null;
-            }
-        }
-
-        return new DetectedTree(actualTreeDefinition, detectedTreeBlocks, DetectedTree.Directions.VERTICAL);
+        TreeSnapshot treeSnapshot = this.detectTree(this.getBlockSource(initialBlock.getWorld()), initialBlock.getX(), initialBlock.getY(), initialBlock.getZ());
+        return treeSnapshot == null ? null : treeSnapshot.toDetectedTree();
     }
 
     /**
-     * Recursively searches for branches off a given block
+     * Gets a BlockSource that reads from a live World, remembering every block it has read
+     * Should only be used for a single detection from the main server thread
      *
-     * @param treeDefinitions The possible tree definitions
-     * @param trunkBlocks     The tree trunk blocks
-     * @param treeBlocks      The detected tree blocks
-     * @param block           The next block to check for a branch
-     * @param startingBlockY  The Y coordinate of the initial block
+     * @param world The World to read from
+     * @return A new BlockSource for the World
      */
-    private void recursiveBranchSearch(Set<TreeDefinition> treeDefinitions, List<Block> trunkBlocks, TreeBlockSet<Block> treeBlocks, Block block, int startingBlockY) {
-        for (Vector offset : this.onlyBreakLogsUpwards ? this.VALID_BRANCH_OFFSETS : this.VALID_TRUNK_OFFSETS) {
-            Block targetBlock = block.getRelative(offset.getBlockX(), offset.getBlockY(), offset.getBlockZ());
-            TreeBlock treeBlock = new TreeBlock(targetBlock, TreeBlockType.LOG);
-            if (this.isValidLogType(treeDefinitions, trunkBlocks, targetBlock) && !treeBlocks.contains(treeBlock)) {
-                treeBlocks.add(treeBlock);
-                treeDefinitions.retainAll(this.treeDefinitionManager.narrowTreeDefinition(treeDefinitions, targetBlock, TreeBlockType.LOG));
-                if (!this.onlyBreakLogsUpwards || targetBlock.getLocation().getBlockY() > startingBlockY)
-                    this.recursiveBranchSearch(treeDefinitions, trunkBlocks, treeBlocks, targetBlock, startingBlockY);
-            }
-        }
+    public CachingBlockSource getBlockSource(World world) {
+        return new CachingBlockSource(new WorldBlockSource(world, position ->
+                this.placedBlockManager.isBlockPlaced(world, BlockPos.unpackX(position), BlockPos.unpackY(position), BlockPos.unpackZ(position))));
     }
 
     /**
-     * Recursively searches for leaves that are next to this tree
+     * Detects a tree given the coordinates of an initial starting block
+     * Doesn't touch the World, so this can be run off of the main thread if the BlockSource allows it
      *
-     * @param treeDefinitions The possible tree definitions
-     * @param treeBlocks      The detected tree blocks
-     * @param block           The next block to check for a leaf
+     * @param blockSource The BlockSource to read the blocks from
+     * @param initialX    The X coordinate of the starting block
+     * @param initialY    The Y coordinate of the starting block
+     * @param initialZ    The Z coordinate of the starting block
+     * @return A TreeSnapshot if a tree was found, otherwise null
      */
-    private void recursiveLeafSearch(Set<TreeDefinition> treeDefinitions, TreeBlockSet<Block> treeBlocks, Block block, Set<Block> visitedBlocks) {
-        boolean detectLeavesDiagonally = treeDefinitions.stream().anyMatch(TreeDefinition::shouldDetectLeavesDiagonally);
-
-        for (Vector offset : !detectLeavesDiagonally ? this.VALID_LEAF_OFFSETS : this.VALID_TRUNK_OFFSETS) {
-            Block targetBlock = block.getRelative(offset.getBlockX(), offset.getBlockY(), offset.getBlockZ());
-            if (visitedBlocks.contains(targetBlock))
-                continue;
-
-            visitedBlocks.add(targetBlock);
-            TreeBlock treeBlock = new TreeBlock(targetBlock, TreeBlockType.LEAF);
-            if (this.isValidLeafType(treeDefinitions, treeBlocks, targetBlock) && !treeBlocks.contains(treeBlock) && !this.doesLeafBorderInvalidLog(treeDefinitions, treeBlocks, targetBlock)) {
-                treeBlocks.add(treeBlock);
-                treeDefinitions.retainAll(this.treeDefinitionManager.narrowTreeDefinition(treeDefinitions, targetBlock, TreeBlockType.LEAF));
-                this.recursiveLeafSearch(treeDefinitions, treeBlocks, targetBlock, visitedBlocks);
-            }
-        }
+    public TreeSnapshot detectTree(BlockSource blockSource, int initialX, int initialY, int initialZ) {
+        return this.detectTree(blockSource, initialX, initialY, initialZ, -1);
     }
 
     /**
-     * Checks if a leaf is bordering a log that isn't part of this tree
+     * Detects a tree given the coordinates of an initial starting block, stopping once enough logs have been found
+     * Doesn't touch the World, so this can be run off of the main thread if the BlockSource allows it
      *
-     * @param treeDefinitions The possible tree definitions
-     * @param treeBlocks      The detected tree blocks
-     * @param block           The block to check
-     * @return True if the leaf borders an invalid log, otherwise false
+     * @param blockSource  The BlockSource to read the blocks from
+     * @param initialX     The X coordinate of the starting block
+     * @param initialY     The Y coordinate of the starting block
+     * @param initialZ     The Z coordinate of the starting block
+     * @param maxLogBlocks The number of logs that will be kept of the tree, or -1 for no limit
+     * @return A TreeSnapshot if a tree was found, otherwise null
      */
-    private boolean doesLeafBorderInvalidLog(Set<TreeDefinition> treeDefinitions, TreeBlockSet<Block> treeBlocks, Block block) {
-        for (Vector offset : this.VALID_TRUNK_OFFSETS) {
-            Block targetBlock = block.getRelative(offset.getBlockX(), offset.getBlockY(), offset.getBlockZ());
-            if (this.isValidLogType(treeDefinitions, null, targetBlock) && !treeBlocks.contains(new TreeBlock(targetBlock, TreeBlockType.LOG)))
-                return true;
-        }
-        return false;
+    public TreeSnapshot detectTree(BlockSource blockSource, int initialX, int initialY, int initialZ, int maxLogBlocks) {
+        DetectionJob detectionJob = this.createDetectionJob(blockSource, initialX, initialY, initialZ, maxLogBlocks);
+        detectionJob.process(Integer.MAX_VALUE);
+        return detectionJob.getResult();
     }
 
     /**
-     * Checks if a given block is valid for the given TreeDefinitions
+     * Creates a detection of a tree given the coordinates of an initial starting block that can be run a bit at a time
+     * Giant and upright trees are looked for first, then horizontal woods if they are enabled
+     * Doesn't touch the World, so this can be run off of the main thread if the BlockSource allows it
      *
-     * @param treeDefinitions The Set of TreeDefinitions to compare against
-     * @param trunkBlocks     The trunk blocks of the tree for checking the distance
-     * @param block           The Block to check
-     * @return True if the block is a valid log type, otherwise false
+     * @param blockSource  The BlockSource to read the blocks from
+     * @param initialX     The X coordinate of the starting block
+     * @param initialY     The Y coordinate of the starting block
+     * @param initialZ     The Z coordinate of the starting block
+     * @param maxLogBlocks The number of logs that will be kept of the tree, or -1 for no limit
+     * @return A new DetectionJob
      */
-    private boolean isValidLogType(Set<TreeDefinition> treeDefinitions, List<Block> trunkBlocks, Block block) {
-        // Check if block is placed
-        if (this.placedBlockManager.isBlockPlaced(block))
-            return false;
+    public DetectionJob createDetectionJob(BlockSource blockSource, int initialX, int initialY, int initialZ, int maxLogBlocks) {
+        return this.detectionEngine.createDetectionJob(blockSource, initialX, initialY, initialZ, maxLogBlocks, this.trunkStrategies);
+    }
 
-        // Check if it matches the tree definition
-        boolean isCorrectType = false;
-        for (TreeDefinition treeDefinition : treeDefinitions) {
-            for (CompatibleMaterial material : treeDefinition.getLogMaterial()) {
-                if (material.equals(CompatibleMaterial.getMaterial(block))) {
-                    isCorrectType = true;
-                    break;
-                }
-            }
+    /**
+     * Runs a DetectionJob with what is left of the detection budget for this tick
+     *
+     * @param detectionJob The DetectionJob to run
+     * @return True if the DetectionJob is done, false if it has to be queued to finish over the next ticks
+     */
+    public boolean processDetectionJob(DetectionJob detectionJob) {
+        if (this.detectionBudgetPerTick <= 0) {
+            detectionJob.process(Integer.MAX_VALUE);
+            return true;
         }
 
-        if (!isCorrectType)
-            return false;
-
-        // Check that it is close enough to the trunk
-        if (trunkBlocks == null || trunkBlocks.isEmpty())
-            return true;
+        this.remainingDetectionBudget = detectionJob.process(this.remainingDetectionBudget);
+        return detectionJob.isDone();
+    }
 
-        Location location = block.getLocation();
-        for (TreeDefinition treeDefinition : treeDefinitions) {
-            double maxDistance = treeDefinition.getMaxLogDistanceFromTrunk() * treeDefinition.getMaxLogDistanceFromTrunk();
-            if (!this.onlyBreakLogsUpwards) // Help detect logs more often if the tree isn't broken at the base
-                maxDistance *= 1.5;
-            for (Block trunkBlock : trunkBlocks)
-                if (location.distanceSquared(trunkBlock.getLocation()) < maxDistance)
-                    return true;
-        }
+    /**
+     * Queues a DetectionJob to finish over the next ticks within the detection budget
+     *
+     * @param detectionJob The DetectionJob to finish
+     * @param callback     The callback to run on the main thread with the result once the DetectionJob is done,
+     *                     or with null if the DetectionJob is dropped before it is done
+     */
+    public void queueDetectionJob(DetectionJob detectionJob, Consumer<TreeSnapshot> callback) {
+        this.queuedDetectionJobs.add(new QueuedDetectionJob(detectionJob, callback));
+    }
 
-        return false;
+    /**
+     * Gets how far from its trunk a tree starting at the given log material can reach horizontally,
+     * including the blocks that have to be looked at around its outermost leaves
+     *
+     * @param material The CompatibleMaterial of the starting log
+     * @return The maximum horizontal reach in blocks
+     */
+    public int getMaxHorizontalReach(CompatibleMaterial material) {
+        return this.detectionEngine.getMaxHorizontalReach(material);
     }
 
     /**
-     * Checks if a given block is valid for the given TreeDefinitions
+     * Checks if a block is the natural base of a tree without detecting the rest of the tree
+     * Horizontal woods are still detected as a whole if they are enabled, as they don't have a trunk to follow
      *
-     * @param treeDefinitions The Set of TreeDefinitions to compare against
-     * @param treeBlocks      The detected blocks of the tree for checking leaf distance
-     * @param block           The Block to check
-     * @return True if the block is a valid log type, otherwise false
+     * @param blockSource The BlockSource to read the blocks from
+     * @param x           The X coordinate of the block
+     * @param y           The Y coordinate of the block
+     * @param z           The Z coordinate of the block
+     * @return The TreeDefinition of the tree the block is the base of, or null if it isn't the base of a tree
      */
-    private boolean isValidLeafType(Set<TreeDefinition> treeDefinitions, TreeBlockSet<Block> treeBlocks, Block block) {
-        // Check if block is placed
-        if (this.placedBlockManager.isBlockPlaced(block))
-            return false;
+    public TreeDefinition detectTreeBase(BlockSource blockSource, int x, int y, int z) {
+        TreeDefinition treeDefinition = this.detectionEngine.detectTreeBase(blockSource, x, y, z);
+        if (treeDefinition != null || this.treeBaseTrunkStrategies.length == 0)
+            return treeDefinition;
+
+        DetectionJob detectionJob = this.detectionEngine.createDetectionJob(blockSource, x, y, z, -1, this.treeBaseTrunkStrategies);
+        detectionJob.process(Integer.MAX_VALUE);
+        TreeSnapshot treeSnapshot = detectionJob.getResult();
+        return treeSnapshot == null ? null : treeSnapshot.getTreeDefinition();
+    }
 
-        // Check if it matches the tree definition
-        boolean isCorrectType = false;
-        for (TreeDefinition treeDefinition : treeDefinitions) {
-            for (CompatibleMaterial material : treeDefinition.getLeafMaterial()) {
-                if (material.equals(CompatibleMaterial.getMaterial(block))) {
-                    isCorrectType = true;
-                    break;
-                }
-            }
-        }
+    /**
+     * A DetectionJob waiting to be finished along with what to do with its result
+     */
+    private static class QueuedDetectionJob {
 
-        if (!isCorrectType)
-            return false;
+        private final DetectionJob detectionJob;
+        private final Consumer<TreeSnapshot> callback;
 
-        // Check that it is close enough to a log
-        if (treeBlocks == null || treeBlocks.isEmpty())
-            return true;
+        private QueuedDetectionJob(DetectionJob detectionJob, Consumer<TreeSnapshot> callback) {
+            this.detectionJob = detectionJob;
+            this.callback = callback;
+        }
 
-        int maxDistanceFromLog = treeDefinitions.stream().map(TreeDefinition::getMaxLeafDistanceFromLog).max(Integer::compareTo).orElse(0);
-        return treeBlocks.getLogBlocks().stream().anyMatch(x -> x.getLocation().distanceSquared(block.getLocation()) < maxDistanceFromLog * maxDistanceFromLog);
     }
 
 }
@@ -1,6 +1,7 @@
 package com.songoda.ultimatetimber.manager;
 
 import com.songoda.core.compatibility.CompatibleHand;
+import com.songoda.core.compatibility.CompatibleMaterial;
 import com.songoda.core.hooks.JobsHook;
 import com.songoda.core.hooks.LogManager;
 import com.songoda.core.hooks.McMMOHook;
@@ -10,13 +11,25 @@ import com.songoda.core.world.SItemStack;
 import com.songoda.ultimatetimber.UltimateTimber;
 import com.songoda.ultimatetimber.events.TreeFallEvent;
 import com.songoda.ultimatetimber.events.TreeFellEvent;
+import com.songoda.ultimatetimber.misc.LongHashSet;
 import com.songoda.ultimatetimber.misc.OnlyToppleWhile;
+import com.songoda.ultimatetimber.tree.BlockPos;
+import com.songoda.ultimatetimber.tree.BlockSource;
+import com.songoda.ultimatetimber.tree.CachingBlockSource;
+import com.songoda.ultimatetimber.tree.ChunkSnapshotBlockSource;
 import com.songoda.ultimatetimber.tree.DetectedTree;
+import com.songoda.ultimatetimber.tree.DetectedTreeSnapshot;
+import com.songoda.ultimatetimber.tree.DetectionJob;
 import com.songoda.ultimatetimber.tree.ITreeBlock;
+import com.songoda.ultimatetimber.tree.TreeBlock;
 import com.songoda.ultimatetimber.tree.TreeBlockSet;
+import com.songoda.ultimatetimber.tree.TreeBlockType;
+import com.songoda.ultimatetimber.tree.TreeDefinition;
+import com.songoda.ultimatetimber.tree.TreeSnapshot;
 import org.bukkit.Bukkit;
 import org.bukkit.GameMode;
 import org.bukkit.Material;
+import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.enchantments.Enchantment;
 import org.bukkit.entity.Player;
@@ -24,47 +37,134 @@ import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockDamageEvent;
 import org.bukkit.inventory.ItemStack;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public class TreeFallManager extends Manager implements Listener {
 
+    private final Map<UUID, LongHashSet> claimedTreeBlocks;
+    private boolean handlingBlockBreak, claimsReleaseScheduled;
+
     private int maxLogBlocksAllowed;
+    private boolean asyncTreeDetection, speculativeTreeDetection, onlyDetectLogsUpwards;
 
     public TreeFallManager(UltimateTimber ultimateTimber) {
         super(ultimateTimber);
+        this.claimedTreeBlocks = new HashMap<>();
         Bukkit.getPluginManager().registerEvents(this, ultimateTimber);
     }
 
     @Override
     public void reload() {
         this.maxLogBlocksAllowed = ConfigurationManager.Setting.MAX_LOGS_PER_CHOP.getInt();
+        this.asyncTreeDetection = ConfigurationManager.Setting.ASYNC_TREE_DETECTION.getBoolean();
+        this.speculativeTreeDetection = ConfigurationManager.Setting.SPECULATIVE_TREE_DETECTION.getBoolean();
+        this.onlyDetectLogsUpwards = ConfigurationManager.Setting.ONLY_DETECT_LOGS_UPWARDS.getBoolean();
     }
 
     @Override
     public void disable() {
+        this.claimedTreeBlocks.clear();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockDamage(BlockDamageEvent event) {
+        // Instantly broken blocks are detected on break right away, async detection doesn't hold up the break anyway
+        if (!this.speculativeTreeDetection || this.asyncTreeDetection || event.getInstaBreak())
+            return;
+
+        TreeDefinitionManager treeDefinitionManager = this.plugin.getTreeDefinitionManager();
+        TreeDetectionManager treeDetectionManager = this.plugin.getTreeDetectionManager();
+        TreeCacheManager treeCacheManager = this.plugin.getTreeCacheManager();
+        ChoppingManager choppingManager = this.plugin.getChoppingManager();
+
+        Player player = event.getPlayer();
+        Block block = event.getBlock();
+        ItemStack tool = event.getItemInHand();
+
+        // Only get a head start for players that are likely to topple the tree
+        int reach = treeDetectionManager.getMaxHorizontalReach(CompatibleMaterial.getMaterial(block));
+        if (reach == 0)
+            return;
 
+        if (ConfigurationManager.Setting.DISABLED_WORLDS.getStringList().contains(player.getWorld().getName()))
+            return;
+
+        if (!choppingManager.isChopping(player) || choppingManager.isInCooldown(player))
+            return;
+
+        if (!treeDefinitionManager.isToolValidForAnyTreeDefinition(tool))
+            return;
+
+        // Repeated clicks on the same block keep using the detection that is already running or done
+        int maxLogBlocksAllowed = this.getMaxLogBlocksAllowed(tool);
+        if (treeCacheManager.hasSpeculativeTree(player, block, maxLogBlocksAllowed) || treeCacheManager.getCachedTree(block, maxLogBlocksAllowed) != null)
+            return;
+
+        // The detection may be spread over multiple ticks, so the stamp has to be taken before any blocks are read
+        int x = block.getX(), z = block.getZ();
+        TreeCacheManager.CachedTree stamp = treeCacheManager.stamp(block.getWorld(), x - reach, z - reach, x + reach, z + reach);
+        CachingBlockSource blockSource = treeDetectionManager.getBlockSource(block.getWorld());
+        DetectionJob detectionJob = treeDetectionManager.createDetectionJob(blockSource, x, block.getY(), z, maxLogBlocksAllowed);
+        this.detectTreeSpeculatively(player, block, blockSource, stamp, detectionJob, maxLogBlocksAllowed);
     }
 
     @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
     public void onBlockBreak(BlockBreakEvent event) {
+        Block block = event.getBlock();
+        TreeDefinitionManager treeDefinitionManager = this.plugin.getTreeDefinitionManager();
+        CompatibleMaterial material = CompatibleMaterial.getMaterial(block);
+
+        // Most broken blocks have nothing to do with trees, only logs go any further than a lookup
+        if (!treeDefinitionManager.isLogMaterial(material)) {
+            // Protect saplings
+            if (treeDefinitionManager.isSaplingMaterial(material) && this.plugin.getSaplingManager().isSaplingProtected(block)) {
+                event.setCancelled(true);
+            } else if (treeDefinitionManager.isLeafMaterial(material) && this.plugin.getTreeAnimationManager().isBlockInAnimation(block)) {
+                event.setCancelled(true);
+            }
+            return;
+        }
+
+        // Other plugins fire their own breaks for the blocks they remove, often for a tree we're already handling
+        if (this.handlingBlockBreak || this.isClaimed(block)) {
+            if (this.plugin.getTreeAnimationManager().isBlockInAnimation(block))
+                event.setCancelled(true);
+            return;
+        }
+
+        this.handlingBlockBreak = true;
+        try {
+            this.handleBlockBreak(event);
+        } finally {
+            this.handlingBlockBreak = false;
+        }
+    }
+
+    /**
+     * Handles a block being broken, toppling the tree it belongs to if all conditions are met
+     *
+     * @param event The BlockBreakEvent of a block that could be part of a tree
+     */
+    private void handleBlockBreak(BlockBreakEvent event) {
         TreeDefinitionManager treeDefinitionManager = this.plugin.getTreeDefinitionManager();
         TreeDetectionManager treeDetectionManager = this.plugin.getTreeDetectionManager();
-        HorizontalTreeDetectionManager horizontalTreeDetectionManager = this.plugin.getHorizontalTreeDetectionManager();
         TreeAnimationManager treeAnimationManager = this.plugin.getTreeAnimationManager();
+        TreeCacheManager treeCacheManager = this.plugin.getTreeCacheManager();
         ChoppingManager choppingManager = this.plugin.getChoppingManager();
         SaplingManager saplingManager = this.plugin.getSaplingManager();
 
         Player player = event.getPlayer();
         Block block = event.getBlock();
-        ItemStack tool = CompatibleHand.getHand(event).getItem(player);
-
-        // Protect saplings
-        if (saplingManager.isSaplingProtected(block)) {
-            event.setCancelled(true);
-            return;
-        }
+        CompatibleHand hand = CompatibleHand.getHand(event);
+        ItemStack tool = hand.getItem(player);
 
         // Condition checks
         boolean isValid = true;
@@ -103,62 +203,429 @@ public class TreeFallManager extends Manager implements Listener {
         if (!isValid && !alwaysReplantSapling)
             return;
 
-        DetectedTree detectedTree = treeDetectionManager.detectTree(block);
+        // The tree won't topple, so all that matters is if a sapling goes back where the block was
+        if (!isValid) {
+            TreeDefinition treeDefinition = treeDetectionManager.detectTreeBase(treeDetectionManager.getBlockSource(block.getWorld()), block.getX(), block.getY(), block.getZ());
+            if (treeDefinition != null) {
+                ITreeBlock<Block> initialLogBlock = new TreeBlock(block, TreeBlockType.LOG);
+                Bukkit.getScheduler().scheduleSyncDelayedTask(this.plugin, () -> saplingManager.replantSapling(treeDefinition, initialLogBlock));
+            }
+            return;
+        }
+
+        if (this.asyncTreeDetection) {
+            this.claimDetection(block);
+            this.detectTreeAsync(event, hand, isValid, alwaysReplantSapling);
+            return;
+        }
+
+        // A detection started while the player was breaking the block is reused if nothing has changed since,
+        // as is a cached detection of the tree the block is part of
+        int maxLogBlocksAllowed = this.getMaxLogBlocksAllowed(tool);
+        TreeCacheManager.CachedTree cachedTree = treeCacheManager.takeSpeculativeTree(player, block, maxLogBlocksAllowed);
+        TreeSnapshot treeSnapshot;
+        if (cachedTree != null) {
+            treeSnapshot = cachedTree.getTreeSnapshot();
+            if (treeSnapshot != null)
+                treeCacheManager.cacheTree(block, cachedTree, treeSnapshot, maxLogBlocksAllowed);
+        } else if ((cachedTree = treeCacheManager.getCachedTree(block, maxLogBlocksAllowed)) != null) {
+            treeSnapshot = cachedTree.getTreeSnapshot(block, this.onlyDetectLogsUpwards);
+        } else {
+            CachingBlockSource blockSource = treeDetectionManager.getBlockSource(block.getWorld());
+            DetectionJob detectionJob = treeDetectionManager.createDetectionJob(blockSource, block.getX(), block.getY(), block.getZ(), maxLogBlocksAllowed);
+            if (!treeDetectionManager.processDetectionJob(detectionJob)) {
+                this.claimDetection(block);
+                this.finishDetectionLater(event, hand, isValid, alwaysReplantSapling, blockSource, detectionJob, maxLogBlocksAllowed);
+                return;
+            }
+            treeSnapshot = detectionJob.getResult();
+
+            // Nothing can change while we're on the main thread, so the stamp can be taken after reading
+            // Logs that aren't part of a tree are remembered too, so builds don't get searched on every break
+            TreeCacheManager.CachedTree stamp = treeCacheManager.stamp(block.getWorld(), blockSource.getMinReadX(),
+                    blockSource.getMinReadZ(), blockSource.getMaxReadX(), blockSource.getMaxReadZ());
+            if (treeSnapshot != null) {
+                treeCacheManager.cacheTree(block, stamp, treeSnapshot, maxLogBlocksAllowed);
+            } else {
+                treeCacheManager.cacheNonTree(block, stamp, detectionJob.getRejectedLogBlocks(), maxLogBlocksAllowed);
+            }
+        }
+
+        if (treeSnapshot == null)
+            return;
+
+        this.claimTree(treeSnapshot);
+        DetectedTree detectedTree = cachedTree != null ? this.revalidateTree(treeSnapshot, false) : treeSnapshot.toDetectedTree();
+
+        if (this.fellTree(player, tool, detectedTree, treeSnapshot.getBlockSource(), isValid, alwaysReplantSapling, false)) {
+            event.setCancelled(true);
+        } else {
+            this.releaseTree(treeSnapshot);
+        }
+    }
+
+    /**
+     * Runs a detection for a block a player has started breaking, finishing it over the next ticks if it runs out of budget
+     *
+     * @param player              The Player breaking the block
+     * @param block               The Block being broken
+     * @param blockSource         The BlockSource the detection is reading from
+     * @param stamp               The stamp taken before the detection read any blocks
+     * @param detectionJob        The DetectionJob to run
+     * @param maxLogBlocksAllowed The number of logs the detection is limited to
+     */
+    private void detectTreeSpeculatively(Player player, Block block, CachingBlockSource blockSource, TreeCacheManager.CachedTree stamp,
+                                         DetectionJob detectionJob, int maxLogBlocksAllowed) {
+        TreeDetectionManager treeDetectionManager = this.plugin.getTreeDetectionManager();
+        TreeCacheManager treeCacheManager = this.plugin.getTreeCacheManager();
+
+        treeCacheManager.startSpeculativeTree(player, block, stamp);
+        Consumer<TreeSnapshot> callback = treeSnapshot -> {
+            // Changes to blocks outside of the stamped chunks wouldn't be noticed, and dropped detections have no result
+            if (!detectionJob.isDone() || !player.isOnline() || !stamp.covers(blockSource.getMinReadX(), blockSource.getMinReadZ(), blockSource.getMaxReadX(), blockSource.getMaxReadZ())) {
+                treeCacheManager.discardSpeculativeTree(player, stamp);
+                return;
+            }
+
+            treeCacheManager.finishSpeculativeTree(player, stamp, treeSnapshot, maxLogBlocksAllowed);
+            if (treeSnapshot == null)
+                treeCacheManager.cacheNonTree(block, stamp, detectionJob.getRejectedLogBlocks(), maxLogBlocksAllowed);
+        };
+
+        if (treeDetectionManager.processDetectionJob(detectionJob)) {
+            callback.accept(detectionJob.getResult());
+        } else {
+            treeDetectionManager.queueDetectionJob(detectionJob, callback);
+        }
+    }
+
+    /**
+     * Finishes a detection that ran out of budget over the next ticks
+     * The broken block is left to break normally, the rest of the tree is felled once the detection is done
+     *
+     * @param event                The BlockBreakEvent that started the detection
+     * @param hand                 The hand the player broke the block with
+     * @param isValid              If the player meets all conditions to topple a tree
+     * @param alwaysReplantSapling If a sapling should be replanted even if the tree won't topple
+     * @param blockSource          The BlockSource the detection is reading from
+     * @param detectionJob         The unfinished DetectionJob
+     * @param maxLogBlocksAllowed  The number of logs the detection is limited to
+     */
+    private void finishDetectionLater(BlockBreakEvent event, CompatibleHand hand, boolean isValid, boolean alwaysReplantSapling,
+                                      CachingBlockSource blockSource, DetectionJob detectionJob, int maxLogBlocksAllowed) {
+        TreeCacheManager treeCacheManager = this.plugin.getTreeCacheManager();
+        Block block = event.getBlock();
+
+        // Nothing has changed since the blocks read so far, the rest will be read after the stamp is taken
+        int reach = this.plugin.getTreeDetectionManager().getMaxHorizontalReach(CompatibleMaterial.getMaterial(block));
+        int x = block.getX(), z = block.getZ();
+        TreeCacheManager.CachedTree stamp = treeCacheManager.stamp(block.getWorld(), x - reach, z - reach, x + reach, z + reach);
+        treeCacheManager.watchTree(block, stamp);
+
+        this.plugin.getTreeDetectionManager().queueDetectionJob(detectionJob, treeSnapshot -> {
+            // A dropped detection says nothing about whether the block was part of a tree
+            if (!detectionJob.isDone()) {
+                treeCacheManager.unwatchTree(stamp);
+                return;
+            }
+
+            // Changes to blocks outside of the stamped chunks wouldn't be noticed
+            if (stamp.covers(blockSource.getMinReadX(), blockSource.getMinReadZ(), blockSource.getMaxReadX(), blockSource.getMaxReadZ())) {
+                if (treeSnapshot != null) {
+                    treeCacheManager.cacheTree(block, stamp, treeSnapshot, maxLogBlocksAllowed);
+                } else {
+                    treeCacheManager.cacheNonTree(block, stamp, detectionJob.getRejectedLogBlocks(), maxLogBlocksAllowed);
+                }
+            }
+
+            if (treeSnapshot != null)
+                this.fellDetectedTree(event, hand, isValid, alwaysReplantSapling, treeSnapshot);
+        });
+    }
+
+    /**
+     * Detects a tree off of the main thread using snapshots of the chunks around the broken block
+     * The broken block is left to break normally, the rest of the tree is felled once the detection is done
+     *
+     * @param event                The BlockBreakEvent that started the detection
+     * @param hand                 The hand the player broke the block with
+     * @param isValid              If the player meets all conditions to topple a tree
+     * @param alwaysReplantSapling If a sapling should be replanted even if the tree won't topple
+     */
+    private void detectTreeAsync(BlockBreakEvent event, CompatibleHand hand, boolean isValid, boolean alwaysReplantSapling) {
+        TreeDetectionManager treeDetectionManager = this.plugin.getTreeDetectionManager();
+        PlacedBlockManager placedBlockManager = this.plugin.getPlacedBlockManager();
+        TreeCacheManager treeCacheManager = this.plugin.getTreeCacheManager();
+
+        Block block = event.getBlock();
+        World world = block.getWorld();
+        int x = block.getX(), y = block.getY(), z = block.getZ();
+
+        // Not a log of any tree, nothing to snapshot
+        int reach = treeDetectionManager.getMaxHorizontalReach(CompatibleMaterial.getMaterial(block));
+        if (reach == 0)
+            return;
+
+        // Repeat breaks of a tree that hasn't changed reuse the last detection
+        int maxLogBlocksAllowed = this.getMaxLogBlocksAllowed(hand.getItem(event.getPlayer()));
+        TreeCacheManager.CachedTree cachedTree = treeCacheManager.getCachedTree(block, maxLogBlocksAllowed);
+        if (cachedTree != null) {
+            TreeSnapshot treeSnapshot = cachedTree.getTreeSnapshot(block, this.onlyDetectLogsUpwards);
+            if (treeSnapshot != null)
+                Bukkit.getScheduler().runTask(this.plugin, () -> this.fellDetectedTree(event, hand, isValid, alwaysReplantSapling, treeSnapshot));
+            return;
+        }
+
+        int minX = x - reach, minZ = z - reach, maxX = x + reach, maxZ = z + reach;
+        TreeCacheManager.CachedTree stamp = treeCacheManager.stamp(world, minX, minZ, maxX, maxZ);
+        treeCacheManager.watchTree(block, stamp);
+        ChunkSnapshotBlockSource snapshotBlockSource = ChunkSnapshotBlockSource.capture(world, minX, minZ, maxX, maxZ, placedBlockManager.getPlacedBlocks(world, minX, minZ, maxX, maxZ));
+        this.detectTreeAsync(event, hand, isValid, alwaysReplantSapling, snapshotBlockSource, stamp, reach, maxLogBlocksAllowed);
+    }
+
+    /**
+     * Detects a tree off of the main thread against captured chunks, capturing more chunks and detecting it again
+     * if the detection had to look past them
+     *
+     * @param event                The BlockBreakEvent that started the detection
+     * @param hand                 The hand the player broke the block with
+     * @param isValid              If the player meets all conditions to topple a tree
+     * @param alwaysReplantSapling If a sapling should be replanted even if the tree won't topple
+     * @param snapshotBlockSource  The captured chunks, taken while the initial block was still there
+     * @param stamp                The stamp taken before the first chunks were captured
+     * @param reach                How far past the blocks that were read the chunks are captured
+     * @param maxLogBlocksAllowed  The number of logs the detection is limited to
+     */
+    private void detectTreeAsync(BlockBreakEvent event, CompatibleHand hand, boolean isValid, boolean alwaysReplantSapling,
+                                 ChunkSnapshotBlockSource snapshotBlockSource, TreeCacheManager.CachedTree stamp, int reach, int maxLogBlocksAllowed) {
+        TreeDetectionManager treeDetectionManager = this.plugin.getTreeDetectionManager();
+        PlacedBlockManager placedBlockManager = this.plugin.getPlacedBlockManager();
+        TreeCacheManager treeCacheManager = this.plugin.getTreeCacheManager();
+
+        Block block = event.getBlock();
+        World world = block.getWorld();
+        int x = block.getX(), y = block.getY(), z = block.getZ();
+        CachingBlockSource blockSource = new CachingBlockSource(snapshotBlockSource);
+
+        Bukkit.getScheduler().runTaskAsynchronously(this.plugin, () -> {
+            DetectionJob detectionJob = treeDetectionManager.createDetectionJob(blockSource, x, y, z, maxLogBlocksAllowed);
+            detectionJob.process(Integer.MAX_VALUE);
+            TreeSnapshot detectedTreeSnapshot = detectionJob.getResult();
+            Bukkit.getScheduler().runTask(this.plugin, () -> {
+                int minReadX = blockSource.getMinReadX(), minReadZ = blockSource.getMinReadZ();
+                int maxReadX = blockSource.getMaxReadX(), maxReadZ = blockSource.getMaxReadZ();
+
+                // Horizontal trees can reach past the captured chunks, everything past them was read as AIR
+                // The chunks that were already captured are kept, as the initial block is gone from the World by now
+                if (!snapshotBlockSource.covers(minReadX, minReadZ, maxReadX, maxReadZ)) {
+                    int minX = minReadX - reach, minZ = minReadZ - reach, maxX = maxReadX + reach, maxZ = maxReadZ + reach;
+                    this.detectTreeAsync(event, hand, isValid, alwaysReplantSapling, snapshotBlockSource.expand(minX, minZ, maxX, maxZ,
+                            placedBlockManager.getPlacedBlocks(world, minX, minZ, maxX, maxZ)), stamp, reach, maxLogBlocksAllowed);
+                    return;
+                }
+
+                // Changes to blocks outside of the stamped chunks wouldn't be noticed
+                boolean cacheable = stamp.covers(minReadX, minReadZ, maxReadX, maxReadZ);
+
+                // Logs that aren't part of a tree are remembered too, so builds don't get snapshotted on every break
+                if (detectedTreeSnapshot == null) {
+                    if (cacheable)
+                        treeCacheManager.cacheNonTree(block, stamp, detectionJob.getRejectedLogBlocks(), maxLogBlocksAllowed);
+                    return;
+                }
+
+                if (cacheable)
+                    treeCacheManager.cacheTree(block, stamp, detectedTreeSnapshot, maxLogBlocksAllowed);
+                this.fellDetectedTree(event, hand, isValid, alwaysReplantSapling, detectedTreeSnapshot);
+            });
+        });
+    }
+
+    /**
+     * Fells a tree detected after its initial block was broken
+     * Must be run on the main thread after the BlockBreakEvent has finished
+     *
+     * @param event                The BlockBreakEvent that started the detection
+     * @param hand                 The hand the player broke the block with
+     * @param isValid              If the player met all conditions to topple a tree when breaking the block
+     * @param alwaysReplantSapling If a sapling should be replanted even if the tree won't topple
+     * @param treeSnapshot         The detected tree
+     */
+    private void fellDetectedTree(BlockBreakEvent event, CompatibleHand hand, boolean isValid, boolean alwaysReplantSapling, TreeSnapshot treeSnapshot) {
+        Player player = event.getPlayer();
+
+        // Another plugin may have cancelled the break after us, or the player may have left in the meantime
+        if (event.isCancelled() || !player.isOnline())
+            return;
+
+        // The tool may have broken or been swapped since the block was broken
+        ItemStack tool = hand.getItem(player);
+        boolean isStillValid = isValid && this.plugin.getTreeDefinitionManager().isToolValidForAnyTreeDefinition(tool);
+        if (!isStillValid && !alwaysReplantSapling)
+            return;
 
-        if (detectedTree == null && ConfigurationManager.Setting.DETECT_HORIZONTAL_WOODS.getBoolean())
-            detectedTree = horizontalTreeDetectionManager.detectTree(block);
+        this.claimTree(treeSnapshot);
+        DetectedTree detectedTree = this.revalidateTree(treeSnapshot, true);
+        if (!this.fellTree(player, tool, detectedTree, treeSnapshot.getBlockSource(), isStillValid, alwaysReplantSapling, true))
+            this.releaseTree(treeSnapshot);
+    }
+
+    /**
+     * Claims the blocks of a tree until the end of the tick, so other breaks of them skip detection
+     *
+     * @param treeSnapshot The TreeSnapshot of the tree to claim
+     */
+    private void claimTree(TreeSnapshot treeSnapshot) {
+        this.scheduleClaimsRelease();
+        LongHashSet claimedBlocks = this.claimedTreeBlocks.computeIfAbsent(treeSnapshot.getWorld().getUID(), worldId -> new LongHashSet());
+        for (long position : treeSnapshot.getLogBlocks())
+            claimedBlocks.add(position);
+        for (long position : treeSnapshot.getLeafBlocks())
+            claimedBlocks.add(position);
+    }
 
-        if (detectedTree == null)
+    /**
+     * Releases the claims of a tree that didn't fall, so the next break of one of its blocks is handled again
+     *
+     * @param treeSnapshot The TreeSnapshot of the claimed tree
+     */
+    private void releaseTree(TreeSnapshot treeSnapshot) {
+        LongHashSet claimedBlocks = this.claimedTreeBlocks.get(treeSnapshot.getWorld().getUID());
+        if (claimedBlocks == null)
             return;
 
+        for (long position : treeSnapshot.getLogBlocks())
+            claimedBlocks.remove(position);
+        for (long position : treeSnapshot.getLeafBlocks())
+            claimedBlocks.remove(position);
+    }
+
+    /**
+     * Claims the initial block of a detection until the end of the tick while the detection hasn't finished yet
+     *
+     * @param block The Block the detection was started from
+     */
+    private void claimDetection(Block block) {
+        this.scheduleClaimsRelease();
+        this.claimedTreeBlocks.computeIfAbsent(block.getWorld().getUID(), worldId -> new LongHashSet())
+                .add(BlockPos.pack(block.getX(), block.getY(), block.getZ()));
+    }
+
+    /**
+     * Checks if a broken block has been claimed by a tree or detection that is already being handled this tick
+     *
+     * @param block The Block that was broken
+     * @return True if the block is claimed, otherwise false
+     */
+    private boolean isClaimed(Block block) {
+        LongHashSet claimedBlocks = this.claimedTreeBlocks.get(block.getWorld().getUID());
+        return claimedBlocks != null && claimedBlocks.contains(BlockPos.pack(block.getX(), block.getY(), block.getZ()));
+    }
+
+    /**
+     * Releases all claims at the start of the next tick
+     */
+    private void scheduleClaimsRelease() {
+        if (this.claimsReleaseScheduled)
+            return;
+
+        this.claimsReleaseScheduled = true;
+        Bukkit.getScheduler().runTask(this.plugin, () -> {
+            this.claimedTreeBlocks.clear();
+            this.claimsReleaseScheduled = false;
+        });
+    }
+
+    /**
+     * Creates a DetectedTree from a TreeSnapshot, dropping any blocks that have changed since the snapshot was taken
+     *
+     * @param treeSnapshot       The TreeSnapshot to revalidate
+     * @param initialBlockBroken If the initial log block has already been broken and should be dropped as well
+     * @return A DetectedTree of the blocks that are still part of the tree
+     */
+    private DetectedTree revalidateTree(TreeSnapshot treeSnapshot, boolean initialBlockBroken) {
+        PlacedBlockManager placedBlockManager = this.plugin.getPlacedBlockManager();
+        TreeDefinition treeDefinition = treeSnapshot.getTreeDefinition();
+
+        DetectedTree detectedTree = treeSnapshot.toDetectedTree();
+        TreeBlockSet<Block> detectedTreeBlocks = detectedTree.getDetectedTreeBlocks();
+        ITreeBlock<Block> initialLogBlock = detectedTreeBlocks.getInitialLogBlock();
+        if (initialBlockBroken)
+            detectedTreeBlocks.remove(initialLogBlock);
+
+        for (ITreeBlock<Block> treeBlock : detectedTreeBlocks.getAllTreeBlocks()) {
+            if (treeBlock.equals(initialLogBlock))
+                continue;
+
+            Block block = treeBlock.getBlock();
+            Set<CompatibleMaterial> validMaterials = treeBlock.getTreeBlockType() == TreeBlockType.LOG ? treeDefinition.getLogMaterial() : treeDefinition.getLeafMaterial();
+            if (!validMaterials.contains(CompatibleMaterial.getMaterial(block)) || placedBlockManager.isBlockPlaced(block))
+                detectedTreeBlocks.remove(treeBlock);
+        }
+
+        return detectedTree;
+    }
+
+    /**
+     * Topples a detected tree if all conditions are met
+     *
+     * @param player               The player toppling the tree
+     * @param tool                 The tool the player is holding
+     * @param detectedTree         The DetectedTree to topple
+     * @param blockSource          The BlockSource the tree was detected from, for the materials its blocks had before falling
+     * @param isValid              If the player meets all conditions to topple a tree
+     * @param alwaysReplantSapling If a sapling should be replanted even if the tree won't topple
+     * @param initialBlockBroken   If the initial log block has already been broken
+     * @return True if the tree was toppled, otherwise false
+     */
+    private boolean fellTree(Player player, ItemStack tool, DetectedTree detectedTree, BlockSource blockSource, boolean isValid, boolean alwaysReplantSapling, boolean initialBlockBroken) {
+        TreeDefinitionManager treeDefinitionManager = this.plugin.getTreeDefinitionManager();
+        TreeAnimationManager treeAnimationManager = this.plugin.getTreeAnimationManager();
+        ChoppingManager choppingManager = this.plugin.getChoppingManager();
+        SaplingManager saplingManager = this.plugin.getSaplingManager();
+
         if (alwaysReplantSapling) {
-            DetectedTree finalDetectedTree = detectedTree;
             Bukkit.getScheduler().scheduleSyncDelayedTask(this.plugin, () ->
-                    saplingManager.replantSapling(finalDetectedTree.getTreeDefinition(), finalDetectedTree.getDetectedTreeBlocks().getInitialLogBlock()));
+                    saplingManager.replantSapling(detectedTree.getTreeDefinition(), detectedTree.getDetectedTreeBlocks().getInitialLogBlock()));
 
             if (!isValid)
-                return;
+                return false;
         }
 
         if (!treeDefinitionManager.isToolValidForTreeDefinition(detectedTree.getTreeDefinition(), tool))
-            return;
+            return false;
 
+        // Detection already stops at the max number of logs, so only the logs that will fall are charged for
         short toolDamage = this.getToolDamage(detectedTree.getDetectedTreeBlocks(), tool.containsEnchantment(Enchantment.SILK_TOUCH));
         if (!ConfigurationManager.Setting.PROTECT_TOOL.getBoolean() && !ItemUtils.hasEnoughDurability(tool, toolDamage))
-            return;
+            return false;
+
+        // Limit log by tool if enabled
+        detectedTree.getDetectedTreeBlocks().sortAndLimit(this.getMaxLogBlocksAllowed(tool));
+
+        // Listeners only get a snapshot of the blocks that will fall, the animation keeps the DetectedTree to itself
+        DetectedTreeSnapshot treeSnapshot = new DetectedTreeSnapshot(detectedTree, blockSource);
 
         if (detectedTree.getDirection() == DetectedTree.Directions.VERTICAL) {
             // Trigger fall event
-            TreeFallEvent treeFallEvent = new TreeFallEvent(player, detectedTree);
+            TreeFallEvent treeFallEvent = new TreeFallEvent(player, treeSnapshot);
             Bukkit.getPluginManager().callEvent(treeFallEvent);
             if (treeFallEvent.isCancelled())
-                return;
+                return false;
         } else {
 
         }
 
         // Valid tree and meets all conditions past this point
-        event.setCancelled(true);
-
-        // Limit log by tool if enabled
-        int maxLogBlocksAllowed = -1;
-
-        NBTItem nbtTool = new NBTItem(tool);
-
-        if (treeDefinitionManager.isOverrideMaxLogsPerChop(nbtTool.getString("item"))) {
-            maxLogBlocksAllowed = treeDefinitionManager.getAxeMaxLogsPerChop(nbtTool.getString("item"));
-        }
-
-        if (maxLogBlocksAllowed < 0) {
-            maxLogBlocksAllowed = this.maxLogBlocksAllowed;
-        }
-
-        detectedTree.getDetectedTreeBlocks().sortAndLimit(maxLogBlocksAllowed);
 
         choppingManager.cooldownPlayer(player, tool);
 
+        // The initial block broke on its own, so it only needs its sapling
+        if (initialBlockBroken && !alwaysReplantSapling)
+            saplingManager.replantSapling(detectedTree.getTreeDefinition(), detectedTree.getDetectedTreeBlocks().getInitialLogBlock());
+
         // Destroy initiated block if enabled
-        if (ConfigurationManager.Setting.DESTROY_INITIATED_BLOCK.getBoolean()) {
+        if (!initialBlockBroken && ConfigurationManager.Setting.DESTROY_INITIATED_BLOCK.getBoolean()) {
             detectedTree.getDetectedTreeBlocks().getInitialLogBlock().getBlock().setType(Material.AIR);
             detectedTree.getDetectedTreeBlocks().remove(detectedTree.getDetectedTreeBlocks().getInitialLogBlock());
         }
@@ -185,8 +652,40 @@ public class TreeFallManager extends Manager implements Listener {
         treeDefinitionManager.dropTreeLoot(detectedTree.getTreeDefinition(), detectedTree.getDetectedTreeBlocks().getInitialLogBlock(), player, false, true);
 
         // Trigger fell event
-        TreeFellEvent treeFellEvent = new TreeFellEvent(player, detectedTree);
+        TreeFellEvent treeFellEvent = new TreeFellEvent(player, treeSnapshot);
         Bukkit.getPluginManager().callEvent(treeFellEvent);
+        return true;
+    }
+
+    /**
+     * Gets the max number of logs that can be broken at one time with a tool
+     *
+     * @param tool The tool to check
+     * @return The max number of logs for the tool if it overrides it, otherwise the global max number of logs
+     */
+    private int getMaxLogBlocksAllowed(ItemStack tool) {
+        // Empty hands can't hold any NBT
+        if (tool == null || tool.getType() == Material.AIR)
+            return this.maxLogBlocksAllowed;
+
+        // Reading the NBT of the tool isn't cheap, and is done every time a player starts breaking a log
+        TreeDefinitionManager treeDefinitionManager = this.plugin.getTreeDefinitionManager();
+        if (!treeDefinitionManager.hasAxeOverridingMaxLogsPerChop())
+            return this.maxLogBlocksAllowed;
+
+        int maxLogBlocksAllowed = -1;
+
+        NBTItem nbtTool = new NBTItem(tool);
+
+        if (treeDefinitionManager.isOverrideMaxLogsPerChop(nbtTool.getString("item"))) {
+            maxLogBlocksAllowed = treeDefinitionManager.getAxeMaxLogsPerChop(nbtTool.getString("item"));
+        }
+
+        if (maxLogBlocksAllowed < 0) {
+            maxLogBlocksAllowed = this.maxLogBlocksAllowed;
+        }
+
+        return maxLogBlocksAllowed;
     }
 
     /**
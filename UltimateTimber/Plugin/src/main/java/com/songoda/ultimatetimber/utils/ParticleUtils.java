@@ -15,6 +15,8 @@ import java.util.Collection;
 
 public class ParticleUtils {
 
+    private static final Location LOCATION = new Location(null, 0, 0, 0);
+
     public static void playFallingParticles(ITreeBlock treeBlock) {
         if (ServerVersion.isServerVersionAtLeast(ServerVersion.V1_13)) {
             BlockData blockData;
@@ -24,19 +26,19 @@ public class ParticleUtils {
                 blockData = ((FallingBlock) treeBlock.getBlock()).getBlockData();
             } else return;
 
-            Location location = treeBlock.getLocation().clone().add(0.5, 0.5, 0.5);
-            location.getWorld().spawnParticle(Particle.BLOCK_DUST, location, 10, blockData);
+            Location location = getCenter(treeBlock);
+            location.getWorld().spawnParticle(Particle.BLOCK_DUST, location.getX(), location.getY(), location.getZ(), 10, blockData);
         } else {
 
             Collection<ItemStack> blockDrops = BlockUtils.getBlockDrops(treeBlock);
             if (!blockDrops.iterator().hasNext())
                 return;
 
-            Location location = treeBlock.getLocation().clone().add(0.5, 0.5, 0.5);
+            Location location = getCenter(treeBlock);
             if (ServerVersion.isServerVersion(ServerVersion.V1_8)) {
                 location.getWorld().playEffect(location, Effect.SMOKE, 4);
             } else {
-                location.getWorld().spawnParticle(Particle.BLOCK_DUST, location, 10, blockDrops.iterator().next().getData());
+                location.getWorld().spawnParticle(Particle.BLOCK_DUST, location.getX(), location.getY(), location.getZ(), 10, blockDrops.iterator().next().getData());
             }
         }
     }
@@ -50,19 +52,31 @@ public class ParticleUtils {
                 blockData = ((FallingBlock) treeBlock.getBlock()).getBlockData();
             } else return;
 
-            Location location = treeBlock.getLocation().clone().add(0.5, 0.5, 0.5);
-            location.getWorld().spawnParticle(Particle.BLOCK_CRACK, location, 10, blockData);
+            Location location = getCenter(treeBlock);
+            location.getWorld().spawnParticle(Particle.BLOCK_CRACK, location.getX(), location.getY(), location.getZ(), 10, blockData);
         } else {
             Collection<ItemStack> blockDrops = BlockUtils.getBlockDrops(treeBlock);
             if (!blockDrops.iterator().hasNext())
                 return;
 
-            Location location = treeBlock.getLocation().clone().add(0.5, 0.5, 0.5);
+            Location location = getCenter(treeBlock);
             if (ServerVersion.isServerVersionAtLeast(ServerVersion.V1_9)) {
-                location.getWorld().spawnParticle(Particle.BLOCK_CRACK, location, 10, blockDrops.iterator().next().getData());
+                location.getWorld().spawnParticle(Particle.BLOCK_CRACK, location.getX(), location.getY(), location.getZ(), 10, blockDrops.iterator().next().getData());
             } else {
                 location.getWorld().playEffect(location, Effect.SMOKE, 4);
             }
         }
     }
+
+    /**
+     * Gets the center of a TreeBlock, following a falling block to wherever it is exactly
+     * Particles are only spawned on the main thread, so the same Location is returned every time
+     *
+     * @param treeBlock The TreeBlock
+     * @return The reused Location at the center of the TreeBlock
+     */
+    private static Location getCenter(ITreeBlock treeBlock) {
+        return treeBlock.getLocation(LOCATION).add(0.5, 0.5, 0.5);
+    }
+
 }
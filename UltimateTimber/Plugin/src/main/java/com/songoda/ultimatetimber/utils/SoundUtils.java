@@ -4,23 +4,28 @@ import com.songoda.core.compatibility.CompatibleSound;
 import com.songoda.ultimatetimber.tree.ITreeBlock;
 import com.songoda.ultimatetimber.tree.TreeBlockType;
 import org.bukkit.Location;
+import org.bukkit.World;
 
 public class SoundUtils {
 
+    // Sounds are only played on the main thread, so one Location is reused instead of creating one for every block
+    private static final Location LOCATION = new Location(null, 0, 0, 0);
+
     public static void playFallingSound(ITreeBlock block) {
-        Location location = block.getLocation();
-        if (location.getWorld() == null) return;
-        CompatibleSound.BLOCK_CHEST_OPEN.play(location.getWorld(), location, 2F, 0.1F);
+        World world = block.getWorld();
+        if (world == null) return;
+        CompatibleSound.BLOCK_CHEST_OPEN.play(world, block.getLocation(LOCATION), 2F, 0.1F);
     }
 
     public static void playLandingSound(ITreeBlock block) {
-        Location location = block.getLocation();
-        if (location.getWorld() == null) return;
+        World world = block.getWorld();
+        if (world == null) return;
 
+        Location location = block.getLocation(LOCATION);
         if (block.getTreeBlockType().equals(TreeBlockType.LOG)) {
-            CompatibleSound.BLOCK_WOOD_FALL.play(location.getWorld(), location, 2F, 0.1F);
+            CompatibleSound.BLOCK_WOOD_FALL.play(world, location, 2F, 0.1F);
         } else {
-            CompatibleSound.BLOCK_GRASS_BREAK.play(location.getWorld(), location, 0.5F, 0.75F);
+            CompatibleSound.BLOCK_GRASS_BREAK.play(world, location, 0.5F, 0.75F);
         }
     }
 